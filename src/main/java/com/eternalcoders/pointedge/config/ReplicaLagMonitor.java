@@ -0,0 +1,86 @@
+package com.eternalcoders.pointedge.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Decides whether the analytics replica may take reads. Every few seconds it asks the replica how
+ * far it trails the primary; while it trails by more than the allowed lag, replication is stopped,
+ * or it cannot be reached, reads stay on the primary. With replication checks off, as for a pair
+ * of local H2 databases, the replica only has to answer.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private final DataSource replica;
+    private final long maxLagSeconds;
+    private final boolean checkReplication;
+
+    // Starts on the primary until the first check has passed
+    private volatile boolean available;
+
+    public ReplicaLagMonitor(DataSource replica, long maxLagSeconds, boolean checkReplication) {
+        this.replica = replica;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkReplication = checkReplication;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    // Called when handing out a replica connection failed; the next check decides when to retry
+    public void markUnavailable(SQLException cause) {
+        if (available) {
+            log.warn("Analytics replica unreachable, reading from the primary: {}", cause.getMessage());
+        }
+        available = false;
+    }
+
+    @Scheduled(fixedDelayString = "${pointedge.datasource.replica.check-interval-ms:5000}")
+    public void check() {
+        boolean usable;
+        String reason;
+        try (Connection connection = replica.getConnection()) {
+            if (!checkReplication) {
+                usable = connection.isValid(2);
+                reason = usable ? null : "connection is not valid";
+            } else {
+                Long lag = secondsBehind(connection);
+                usable = lag != null && lag <= maxLagSeconds;
+                reason = lag == null ? "replication is not running" : lag + "s behind the primary";
+            }
+        } catch (SQLException e) {
+            usable = false;
+            reason = e.getMessage();
+        }
+
+        if (usable != available) {
+            if (usable) {
+                log.info("Analytics replica back in use");
+            } else {
+                log.warn("Analytics replica taken out of use: {}", reason);
+            }
+        }
+        available = usable;
+    }
+
+    // null while the replica thread is stopped or the server is not a replica
+    private Long secondsBehind(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                return rs.next() ? rs.getObject("Seconds_Behind_Source", Long.class) : null;
+            } catch (SQLException e) {
+                // MySQL before 8.0.22
+                try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                    return rs.next() ? rs.getObject("Seconds_Behind_Master", Long.class) : null;
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.eternalcoders.pointedge.controller;
 
 import com.eternalcoders.pointedge.dto.*;
+import com.eternalcoders.pointedge.enums.SalesBucket;
 import com.eternalcoders.pointedge.service.AnalyticsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -14,28 +19,110 @@ public class AnalyticsController {
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private NdjsonWriter ndjsonWriter;
+
+    // net of cash and card refunds; every product when no limit is given
     @GetMapping("/top-selling-products")
-    public List<TopSellingProductDTO> getTopSellingProducts() {
-        return analyticsService.getTopSellingProducts();
+    public List<TopSellingProductDTO> getTopSellingProducts(@RequestParam(required = false) Integer limit) {
+        return analyticsService.getTopSellingProducts(limit == null ? null : Math.max(1, limit));
     }
 
+    // item sales per hour, day, week or month; the whole history by day when no range is given
     @GetMapping("/sales-over-time")
-    public List<DailySalesDTO> getSalesOverTime() {
-        return analyticsService.getSalesOverTime();
+    public List<DailySalesDTO> getSalesOverTime(
+            @RequestParam(defaultValue = "DAY") SalesBucket bucket,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate) {
+        return analyticsService.getSalesOverTime(bucket, startDate, endDate);
+    }
+
+    // the same series as newline-delimited JSON, written bucket by bucket as the rollup is read
+    @GetMapping(value = "/sales-over-time", params = "format=ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamSalesOverTime(
+            @RequestParam(defaultValue = "DAY") SalesBucket bucket,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate) {
+        return ndjsonWriter.<DailySalesDTO>write(sink -> analyticsService.forEachSalesBucket(bucket, startDate, endDate, sink));
     }
 
     @GetMapping("/revenue")
-    public List<ProductRevenueDTO> getRevenueByProduct() {
-        return analyticsService.getRevenueByProduct();
+    public List<ProductRevenueDTO> getRevenueByProduct(@RequestParam(required = false) Integer limit) {
+        return analyticsService.getRevenueByProduct(limit == null ? null : Math.max(1, limit));
+    }
+
+    @PostMapping("/product-sales/rebuild")
+    public Map<String, Object> rebuildProductSalesTotals() {
+        return analyticsService.rebuildProductSalesTotals();
     }
 
+    // units returned over units sold in the range, highest first; all time when no range is given
     @GetMapping("/return-rates")
-    public List<ProductReturnRateDTO> getReturnRatesByProduct() {
-        return analyticsService.getReturnRatesByProduct();
+    public List<ProductReturnRateDTO> getReturnRatesByProduct(
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(required = false) Integer top) {
+        return analyticsService.getReturnRatesByProduct(startDate, endDate, top == null ? null : Math.max(1, top));
+    }
+
+    @PostMapping("/product-stats/rebuild")
+    public Map<String, Object> rebuildProductStats(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate) {
+        return analyticsService.rebuildProductStats(startDate, endDate);
     }
 
     @GetMapping("/category-distribution")
     public List<CategoryDistributionDTO> getCategoryDistribution() {
         return analyticsService.getProductCategoryDistribution();
     }
-}
\ No newline at end of file
+
+    @GetMapping("/catalog-stats")
+    public CatalogStatsDTO getCatalogStats() {
+        return analyticsService.getCatalogStats();
+    }
+
+    // daily units and revenue of one product; the last year when no range is given
+    @GetMapping("/products/{productId}/sales-series")
+    public List<ProductSalesPointDTO> getProductSalesSeries(
+            @PathVariable Long productId,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate) {
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusYears(1).plusDays(1);
+        return analyticsService.getProductSalesSeries(productId, start, end);
+    }
+
+    // daily units and revenue of a category's products, summed per day
+    @GetMapping("/categories/{categoryId}/sales-series")
+    public List<ProductSalesPointDTO> getCategorySalesSeries(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate) {
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusYears(1).plusDays(1);
+        return analyticsService.getCategorySalesSeries(categoryId, start, end);
+    }
+
+    // rebuilds whole calendar years
+    @PostMapping("/product-series/rebuild")
+    public Map<String, Object> rebuildProductSalesSeries(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate) {
+        return analyticsService.rebuildProductSalesSeries(startDate, endDate);
+    }
+
+    // products most often in the same order as this one, for upsell prompts and bundle design
+    @GetMapping("/products/{productId}/bought-with")
+    public List<BoughtWithDTO> getBoughtWith(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "5") int limit) {
+        return analyticsService.getBoughtWith(productId, Math.max(1, limit));
+    }
+
+    // mines orders placed since the last run, or the whole history again with rebuild=true
+    @PostMapping("/basket-affinity/run")
+    public Map<String, Object> mineBasketAffinity(@RequestParam(defaultValue = "false") boolean rebuild) {
+        return analyticsService.mineBasketAffinity(rebuild);
+    }
+}
@@ -13,8 +13,10 @@ import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Duration;
 import java.time.LocalDate;
@@ -34,12 +36,14 @@ public class AttendanceController {
     private final AttendanceService attendanceService;
     private final EmployeeService employeeService;
     private final JwtUtil jwtUtil;
+    private final NdjsonWriter ndjsonWriter;
 
     @Autowired
-    public AttendanceController(AttendanceService attendanceService, EmployeeService employeeService, JwtUtil jwtUtil) {
+    public AttendanceController(AttendanceService attendanceService, EmployeeService employeeService, JwtUtil jwtUtil, NdjsonWriter ndjsonWriter) {
         this.attendanceService = attendanceService;
         this.employeeService = employeeService;
         this.jwtUtil = jwtUtil;
+        this.ndjsonWriter = ndjsonWriter;
     }
 
     @GetMapping
@@ -50,6 +54,13 @@ public class AttendanceController {
         return ResponseEntity.ok(attendances);
     }
 
+    // Every attendance as newline-delimited JSON, written as the rows are read
+    @GetMapping(params = "format=ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllAttendances() {
+        return ndjsonWriter.<AttendanceDTO>write(sink ->
+                attendanceService.forEachAttendance(attendance -> sink.accept(convertToDTO(attendance))));
+    }
+
     @GetMapping("/employee/{employeeId}")
     public ResponseEntity<List<AttendanceDTO>> getAttendanceByEmployee(@PathVariable Long employeeId) {
         try {
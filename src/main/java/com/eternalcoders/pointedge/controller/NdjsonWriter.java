@@ -0,0 +1,56 @@
+package com.eternalcoders.pointedge.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes rows as newline-delimited JSON while they are produced, so a response holds one row in
+ * memory at a time however many rows it has. The producer is handed a sink and runs on the
+ * streaming thread, so it should open its own read-only transaction around a repository Stream.
+ */
+@Component
+public class NdjsonWriter {
+    // Flushed after the first row for a quick first byte, then every this many rows
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectWriter rowWriter;
+
+    public NdjsonWriter(ObjectMapper objectMapper) {
+        this.rowWriter = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    }
+
+    public <T> StreamingResponseBody write(Consumer<Consumer<T>> producer) {
+        return outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            int[] written = {0};
+            try {
+                producer.accept(row -> {
+                    try {
+                        rowWriter.writeValue(out, row);
+                        out.write('\n');
+                        if (++written[0] == 1 || written[0] % FLUSH_EVERY == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        // Client went away; unwound below so the producer's query stops
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+    }
+}
@@ -1,27 +1,66 @@
 package com.eternalcoders.pointedge.controller;
 
+import com.eternalcoders.pointedge.dto.CheckoutRequestDTO;
+import com.eternalcoders.pointedge.dto.OrderBatchResultDTO;
+import com.eternalcoders.pointedge.dto.OrderCursorPageDTO;
 import com.eternalcoders.pointedge.dto.OrderRequestDTO;
 import com.eternalcoders.pointedge.dto.OrderStatsDTO;
+import com.eternalcoders.pointedge.dto.ProductOrderPageDTO;
 import com.eternalcoders.pointedge.dto.ProductOrderQuantityDTO;
 import com.eternalcoders.pointedge.entity.Order;
 import com.eternalcoders.pointedge.service.OrderService;
+import com.eternalcoders.pointedge.service.OrderStatsRollupService;
+import com.eternalcoders.pointedge.service.ProductDailyStatsService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
     private final OrderService orderService;
+    private final OrderStatsRollupService orderStatsRollupService;
+    private final ProductDailyStatsService productDailyStatsService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderStatsRollupService orderStatsRollupService,
+                           ProductDailyStatsService productDailyStatsService) {
         this.orderService = orderService;
+        this.orderStatsRollupService = orderStatsRollupService;
+        this.productDailyStatsService = productDailyStatsService;
+    }
+
+    @GetMapping
+    public ResponseEntity<OrderCursorPageDTO> getOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorDate,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(required = false) Long employeeId,
+            @RequestParam(required = false) String customerName,
+            @RequestParam(required = false) String cashierName,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeItems
+    ) {
+        return ResponseEntity.ok(orderService.getOrderPage(
+                cursorDate,
+                cursorId,
+                employeeId,
+                customerName,
+                cashierName,
+                startDate,
+                endDate,
+                size,
+                includeItems
+        ));
     }
 
     @GetMapping("/{id}")
@@ -53,11 +92,47 @@ public class OrderController {
         ));
     }
 
+    // Lean, keyset-paged version of /summary from the per-product daily rollup; one row per product at its current price
+    @GetMapping("/product-totals")
+    public ResponseEntity<ProductOrderPageDTO> getProductOrderTotals(
+            @RequestParam(required = false) Long brandId,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursorName,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeCount
+    ) {
+        return ResponseEntity.ok(productDailyStatsService.getProductOrderPage(
+                brandId,
+                categoryId,
+                startDate,
+                endDate,
+                search,
+                cursorName,
+                cursorId,
+                size,
+                includeCount
+        ));
+    }
+
     @PostMapping("/save")
     public ResponseEntity<Map<String, Object>> saveOrder(@RequestBody OrderRequestDTO orderRequestDTO) {
         return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrderWithInvoice(orderRequestDTO));
     }
 
+    @PostMapping("/checkout")
+    public ResponseEntity<Map<String, Object>> checkout(@RequestBody CheckoutRequestDTO checkoutRequestDTO) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(orderService.checkout(checkoutRequestDTO));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<OrderBatchResultDTO>> saveOrderBatch(@RequestBody List<OrderRequestDTO> orderRequestDTOs) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrdersInBatch(orderRequestDTOs));
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<OrderStatsDTO> getOrderStats(
             @RequestParam(required = false) Long brandId,
@@ -69,4 +144,12 @@ public class OrderController {
                 brandId, categoryId, startDate, endDate
         ));
     }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildOrderStats(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate
+    ) {
+        return ResponseEntity.ok(orderStatsRollupService.rebuild(startDate, endDate));
+    }
 }
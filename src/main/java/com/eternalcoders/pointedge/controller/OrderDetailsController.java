@@ -1,14 +1,22 @@
 package com.eternalcoders.pointedge.controller;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Map;
+import com.eternalcoders.pointedge.service.DiscountAnalyticsCubeService;
+import com.eternalcoders.pointedge.service.DiscountAnalyticsSnapshotService;
+import com.eternalcoders.pointedge.service.DistinctCountSketchService;
+import com.eternalcoders.pointedge.service.OrderDetailsExportService;
 import com.eternalcoders.pointedge.service.OrderDetailsService;
 import com.eternalcoders.pointedge.service.CustomerService;
 import com.eternalcoders.pointedge.service.DiscountService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("api/v1/discount/analytics")
@@ -23,6 +31,18 @@ public class OrderDetailsController {
     @Autowired
     private DiscountService discountService;
 
+    @Autowired
+    private DiscountAnalyticsCubeService discountAnalyticsCubeService;
+
+    @Autowired
+    private DiscountAnalyticsSnapshotService discountAnalyticsSnapshotService;
+
+    @Autowired
+    private OrderDetailsExportService orderDetailsExportService;
+
+    @Autowired
+    private DistinctCountSketchService distinctCountSketchService;
+
     // count orders by time slot  
     @GetMapping("/orders/count")
     public ResponseEntity<Map<String, Long>> getOrderCounts() {
@@ -37,8 +57,9 @@ public class OrderDetailsController {
 
     //count customers by time slot
     @GetMapping("/customers/count-by-tier")
-    public ResponseEntity<Map<String, Object>> getCustomerCountsByTier() {
-        return ResponseEntity.ok(orderDetailsService.getCustomerCountsByTier());
+    public ResponseEntity<Map<String, Object>> getCustomerCountsByTier(
+            @RequestParam(defaultValue = "false") boolean exact) {
+        return ResponseEntity.ok(orderDetailsService.getCustomerCountsByTier(exact));
     }
 
     // count total loyalty discount
@@ -47,10 +68,11 @@ public class OrderDetailsController {
         return ResponseEntity.ok(orderDetailsService.getLoyaltyDiscountDataByTier());
     }
 
-    // amount and top 3 items
+    // amount and top items, 3 unless asked for more
     @GetMapping("/item-discounts/analytics")
-    public ResponseEntity<Map<String, Object>> getItemDiscountAnalytics() {
-        return ResponseEntity.ok(orderDetailsService.getItemDiscountAnalytics());
+    public ResponseEntity<Map<String, Object>> getItemDiscountAnalytics(
+            @RequestParam(defaultValue = "3") int top) {
+        return ResponseEntity.ok(orderDetailsService.getItemDiscountAnalytics(top));
     }
 
     // category discounts
@@ -71,13 +93,48 @@ public class OrderDetailsController {
         return ResponseEntity.ok(orderDetailsService.getOrderSummaryMetrics());
     }
 
+    // all of the above in one response, shared by every caller within the same minute
+    @GetMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> getAnalyticsSnapshot() {
+        return ResponseEntity.ok(discountAnalyticsSnapshotService.getSnapshot());
+    }
+
+    // raw order details between start and end, both inclusive like the /custom endpoints, as CSV, streamed
+    @GetMapping("/order-details/export")
+    public ResponseEntity<StreamingResponseBody> exportOrderDetails(
+            @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        StreamingResponseBody body = outputStream -> orderDetailsExportService.writeCsv(startDate, endDate, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"order-details.csv\"")
+                .contentType(new MediaType("text", "csv"))
+                .body(body);
+    }
+
+    // rebuild the analytics cube from order details
+    @PostMapping("/cube/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDiscountAnalyticsCube(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate) {
+        return ResponseEntity.ok(discountAnalyticsCubeService.rebuild(startDate, endDate));
+    }
+
+    // rebuild the daily distinct customer and order sketches from order details
+    @PostMapping("/sketches/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDistinctCountSketches(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate) {
+        return ResponseEntity.ok(distinctCountSketchService.rebuild(startDate, endDate));
+    }
+
     // Add these methods to OrderDetailsController.java
 
 @GetMapping("/orders/count/custom")
 public ResponseEntity<Map<String, Long>> getOrderCountsByCustomRange(
         @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-        @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-    return ResponseEntity.ok(orderDetailsService.getOrderCountsByCustomRange(startDate, endDate));
+        @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+        @RequestParam(defaultValue = "false") boolean exact) {
+    return ResponseEntity.ok(orderDetailsService.getOrderCountsByCustomRange(startDate, endDate, exact));
 }
 
 @GetMapping("/discounts/count-by-type/custom")
@@ -90,8 +147,9 @@ public ResponseEntity<Map<String, Map<String, Long>>> getDiscountCountsByTypeFor
 @GetMapping("/customers/count-by-tier/custom")
 public ResponseEntity<Map<String, Object>> getCustomerCountsByTierForCustomRange(
         @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-        @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-    return ResponseEntity.ok(orderDetailsService.getCustomerCountsByTierForCustomRange(startDate, endDate));
+        @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+        @RequestParam(defaultValue = "false") boolean exact) {
+    return ResponseEntity.ok(orderDetailsService.getCustomerCountsByTierForCustomRange(startDate, endDate, exact));
 }
 
 @GetMapping("/loyalty-discounts/by-tier/custom")
@@ -104,8 +162,9 @@ public ResponseEntity<Map<String, Object>> getLoyaltyDiscountDataByTierForCustom
 @GetMapping("/item-discounts/analytics/custom")
 public ResponseEntity<Map<String, Object>> getItemDiscountAnalyticsForCustomRange(
         @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-        @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-    return ResponseEntity.ok(orderDetailsService.getItemDiscountAnalyticsForCustomRange(startDate, endDate));
+        @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+        @RequestParam(required = false) Integer top) {
+    return ResponseEntity.ok(orderDetailsService.getItemDiscountAnalyticsForCustomRange(startDate, endDate, top));
 }
 
 @GetMapping("/category-discounts/analytics/custom")
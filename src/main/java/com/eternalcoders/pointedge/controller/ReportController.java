@@ -0,0 +1,40 @@
+package com.eternalcoders.pointedge.controller;
+
+import com.eternalcoders.pointedge.dto.ReportSnapshotDTO;
+import com.eternalcoders.pointedge.service.ReportSnapshotService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+@CrossOrigin
+public class ReportController {
+
+    private final ReportSnapshotService reportSnapshotService;
+
+    public ReportController(ReportSnapshotService reportSnapshotService) {
+        this.reportSnapshotService = reportSnapshotService;
+    }
+
+    // latest version and asOf of every precomputed report
+    @GetMapping
+    public List<ReportSnapshotDTO> getLatestSnapshots() {
+        return reportSnapshotService.getLatestSnapshots();
+    }
+
+    // the latest snapshot of a report, or the given version of it
+    @GetMapping("/{reportName}")
+    public ReportSnapshotDTO getSnapshot(@PathVariable String reportName,
+                                         @RequestParam(required = false) Integer version) {
+        return reportSnapshotService.getSnapshot(reportName, version);
+    }
+
+    // computes a new version in the background; 429 when the report was refreshed too recently
+    @PostMapping("/{reportName}/refresh")
+    public ResponseEntity<Map<String, Object>> refresh(@PathVariable String reportName) {
+        return ResponseEntity.accepted().body(reportSnapshotService.refresh(reportName));
+    }
+}
@@ -5,8 +5,10 @@ import com.eternalcoders.pointedge.service.ShiftReportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,6 +20,9 @@ public class ShiftReportController {
     
     @Autowired
     private ShiftReportService shiftReportService;
+
+    @Autowired
+    private NdjsonWriter ndjsonWriter;
     
     /**
      * Get combined shift and performance data for a specific employee (all time)
@@ -71,6 +76,14 @@ public class ShiftReportController {
         }
     }
     
+    /**
+     * Same as /all, as newline-delimited JSON written while the attendances are read
+     */
+    @GetMapping(value = "/all", params = "format=ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllEmployeesShiftReport() {
+        return ndjsonWriter.<ShiftReportDTO>write(shiftReportService::forEachShiftReport);
+    }
+    
     /**
      * Get shift reports for all employees within date range
      */
@@ -0,0 +1,33 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BasketPricingDTO {
+    private String loyaltyTier;
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    private BigDecimal itemDiscount = BigDecimal.ZERO;
+    private BigDecimal categoryDiscount = BigDecimal.ZERO;
+    private BigDecimal loyaltyDiscount = BigDecimal.ZERO;
+    private BigDecimal totalDiscount = BigDecimal.ZERO;
+    private BigDecimal total = BigDecimal.ZERO;
+    private double earnedPoints;
+    private double usedPoints;
+    private List<Line> lines = new ArrayList<>();
+
+    @Data
+    public static class Line {
+        private Long productId;
+        private String productName;
+        private int quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal lineTotal;
+        private BigDecimal itemDiscount = BigDecimal.ZERO;
+        private BigDecimal categoryDiscount = BigDecimal.ZERO;
+        private Long discountId;
+    }
+}
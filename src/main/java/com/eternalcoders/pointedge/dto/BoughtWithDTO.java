@@ -0,0 +1,12 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BoughtWithDTO {
+    private Long productId;
+    private String productName;
+    private Long orderCount;
+}
@@ -0,0 +1,11 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BrandDistributionDTO {
+    private String brandName;
+    private Long productCount;
+}
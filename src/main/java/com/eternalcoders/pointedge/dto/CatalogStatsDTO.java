@@ -0,0 +1,18 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Category and brand counts and lowStockProducts cover visible products only
+@Data
+@AllArgsConstructor
+public class CatalogStatsDTO {
+    private long totalProducts;
+    private long visibleProducts;
+    private long hiddenProducts;
+    private long lowStockProducts;
+    private List<CategoryDistributionDTO> categories;
+    private List<BrandDistributionDTO> brands;
+}
@@ -0,0 +1,19 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class CheckoutRequestDTO {
+    private String customerName;
+    private String customerPhone;
+    private String discountCode;
+    private Long employeeId;
+    private String cashierName;
+    private BigDecimal cashAmount;
+    private BigDecimal cardAmount;
+    // Only productId and quantity are read; prices come from the product catalog
+    private List<OrderItemDTO> items;
+}
@@ -0,0 +1,63 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.Getter;
+
+/**
+ * Summed order_details measures for one (item, category, loyalty tier) over a time range,
+ * read either from the discount analytics cube or straight from order_details.
+ */
+@Getter
+public class DiscountCubeCellDTO {
+    private final Long itemId;
+    private final Long categoryId;
+    private final String loyaltyTier;
+    private final double amount;
+    private final double totalDiscount;
+    private final double itemDiscount;
+    private final double categoryDiscount;
+    private final double loyaltyDiscount;
+    private final double pointsEarned;
+    private final long lineCount;
+    private final long orderCount;
+    private final long itemDiscountLines;
+    private final double itemDiscountAmount;
+    private final long categoryDiscountLines;
+    private final double categoryDiscountAmount;
+    private final long loyaltyDiscountLines;
+    private final double loyaltyDiscountAmount;
+
+    // Takes Number so the same constructor fits SUMs over double columns and over CASE expressions
+    public DiscountCubeCellDTO(Long itemId, Long categoryId, String loyaltyTier,
+                               Number amount, Number totalDiscount, Number itemDiscount,
+                               Number categoryDiscount, Number loyaltyDiscount, Number pointsEarned,
+                               Number lineCount, Number orderCount,
+                               Number itemDiscountLines, Number itemDiscountAmount,
+                               Number categoryDiscountLines, Number categoryDiscountAmount,
+                               Number loyaltyDiscountLines, Number loyaltyDiscountAmount) {
+        this.itemId = itemId;
+        this.categoryId = categoryId;
+        this.loyaltyTier = loyaltyTier;
+        this.amount = toDouble(amount);
+        this.totalDiscount = toDouble(totalDiscount);
+        this.itemDiscount = toDouble(itemDiscount);
+        this.categoryDiscount = toDouble(categoryDiscount);
+        this.loyaltyDiscount = toDouble(loyaltyDiscount);
+        this.pointsEarned = toDouble(pointsEarned);
+        this.lineCount = toLong(lineCount);
+        this.orderCount = toLong(orderCount);
+        this.itemDiscountLines = toLong(itemDiscountLines);
+        this.itemDiscountAmount = toDouble(itemDiscountAmount);
+        this.categoryDiscountLines = toLong(categoryDiscountLines);
+        this.categoryDiscountAmount = toDouble(categoryDiscountAmount);
+        this.loyaltyDiscountLines = toLong(loyaltyDiscountLines);
+        this.loyaltyDiscountAmount = toDouble(loyaltyDiscountAmount);
+    }
+
+    private static double toDouble(Number value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    private static long toLong(Number value) {
+        return value != null ? value.longValue() : 0L;
+    }
+}
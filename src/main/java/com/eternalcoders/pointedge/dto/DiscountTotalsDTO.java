@@ -0,0 +1,73 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.Getter;
+
+/**
+ * order_details measures summed over a time range, with no breakdown. Totals of adjacent ranges
+ * add up and a prefix total minus an earlier one gives the range between them.
+ */
+@Getter
+public class DiscountTotalsDTO {
+    public static final DiscountTotalsDTO ZERO = new DiscountTotalsDTO(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final double amount;
+    private final double totalDiscount;
+    private final double itemDiscount;
+    private final double categoryDiscount;
+    private final double loyaltyDiscount;
+    private final double pointsEarned;
+    private final long itemDiscountLines;
+    private final double itemDiscountAmount;
+    private final long categoryDiscountLines;
+    private final double categoryDiscountAmount;
+    private final long loyaltyDiscountLines;
+    private final double loyaltyDiscountAmount;
+
+    // Takes Number so the same constructor fits SUMs over double columns and over CASE expressions
+    public DiscountTotalsDTO(Number amount, Number totalDiscount, Number itemDiscount,
+                             Number categoryDiscount, Number loyaltyDiscount, Number pointsEarned,
+                             Number itemDiscountLines, Number itemDiscountAmount,
+                             Number categoryDiscountLines, Number categoryDiscountAmount,
+                             Number loyaltyDiscountLines, Number loyaltyDiscountAmount) {
+        this.amount = toDouble(amount);
+        this.totalDiscount = toDouble(totalDiscount);
+        this.itemDiscount = toDouble(itemDiscount);
+        this.categoryDiscount = toDouble(categoryDiscount);
+        this.loyaltyDiscount = toDouble(loyaltyDiscount);
+        this.pointsEarned = toDouble(pointsEarned);
+        this.itemDiscountLines = toLong(itemDiscountLines);
+        this.itemDiscountAmount = toDouble(itemDiscountAmount);
+        this.categoryDiscountLines = toLong(categoryDiscountLines);
+        this.categoryDiscountAmount = toDouble(categoryDiscountAmount);
+        this.loyaltyDiscountLines = toLong(loyaltyDiscountLines);
+        this.loyaltyDiscountAmount = toDouble(loyaltyDiscountAmount);
+    }
+
+    public DiscountTotalsDTO plus(DiscountTotalsDTO other) {
+        return new DiscountTotalsDTO(
+                amount + other.amount, totalDiscount + other.totalDiscount, itemDiscount + other.itemDiscount,
+                categoryDiscount + other.categoryDiscount, loyaltyDiscount + other.loyaltyDiscount,
+                pointsEarned + other.pointsEarned,
+                itemDiscountLines + other.itemDiscountLines, itemDiscountAmount + other.itemDiscountAmount,
+                categoryDiscountLines + other.categoryDiscountLines, categoryDiscountAmount + other.categoryDiscountAmount,
+                loyaltyDiscountLines + other.loyaltyDiscountLines, loyaltyDiscountAmount + other.loyaltyDiscountAmount);
+    }
+
+    public DiscountTotalsDTO minus(DiscountTotalsDTO other) {
+        return new DiscountTotalsDTO(
+                amount - other.amount, totalDiscount - other.totalDiscount, itemDiscount - other.itemDiscount,
+                categoryDiscount - other.categoryDiscount, loyaltyDiscount - other.loyaltyDiscount,
+                pointsEarned - other.pointsEarned,
+                itemDiscountLines - other.itemDiscountLines, itemDiscountAmount - other.itemDiscountAmount,
+                categoryDiscountLines - other.categoryDiscountLines, categoryDiscountAmount - other.categoryDiscountAmount,
+                loyaltyDiscountLines - other.loyaltyDiscountLines, loyaltyDiscountAmount - other.loyaltyDiscountAmount);
+    }
+
+    private static double toDouble(Number value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    private static long toLong(Number value) {
+        return value != null ? value.longValue() : 0L;
+    }
+}
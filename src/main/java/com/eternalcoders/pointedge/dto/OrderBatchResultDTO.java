@@ -0,0 +1,17 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBatchResultDTO {
+    private int index;
+    private boolean success;
+    private Long orderId;
+    private String invoiceNumber;
+    private Long totalOrdersByEmployee;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderCursorPageDTO {
+    private List<OrderSummaryDTO> orders;
+    // Pass these back as cursorDate/cursorId to get the next page; null when there is none
+    private LocalDateTime nextCursorDate;
+    private Long nextCursorId;
+    private boolean hasMore;
+}
@@ -0,0 +1,14 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OrderLineDTO {
+    private Long orderId;
+    private Long productId;
+    private String productName;
+    private long quantity;
+    private double pricePerUnit;
+}
@@ -0,0 +1,42 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class OrderSummaryDTO {
+    private Long id;
+    private LocalDateTime orderDate;
+    private String customerName;
+    private String customerPhone;
+    private Long employeeId;
+    private String cashierName;
+    private Double amount;
+    private Double totalDiscount;
+    private Double total;
+    private BigDecimal cashAmount;
+    private BigDecimal cardAmount;
+    // Only filled in when items are requested
+    private List<OrderLineDTO> items;
+
+    public OrderSummaryDTO(Long id, LocalDateTime orderDate, String customerName, String customerPhone,
+                           Long employeeId, String cashierName, Double amount, Double totalDiscount,
+                           Double total, BigDecimal cashAmount, BigDecimal cardAmount) {
+        this.id = id;
+        this.orderDate = orderDate;
+        this.customerName = customerName;
+        this.customerPhone = customerPhone;
+        this.employeeId = employeeId;
+        this.cashierName = cashierName;
+        this.amount = amount;
+        this.totalDiscount = totalDiscount;
+        this.total = total;
+        this.cashAmount = cashAmount;
+        this.cardAmount = cardAmount;
+    }
+}
@@ -0,0 +1,18 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductOrderPageDTO {
+    private List<ProductOrderTotalDTO> products;
+    // Pass these back as cursorName/cursorId to get the next page; null when there is none
+    private String nextCursorName;
+    private Long nextCursorId;
+    private boolean hasMore;
+    // Products matching the brand, category and search filters, sold in the range or not; null unless asked for
+    private Long approximateTotal;
+}
@@ -0,0 +1,20 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.Data;
+
+@Data
+public class ProductOrderTotalDTO {
+    private Long productId;
+    private String productName;
+    private Double price;
+    private Long totalQuantity;
+    private String imageName;
+
+    public ProductOrderTotalDTO(Long productId, String productName, Number price, Number totalQuantity, String imageName) {
+        this.productId = productId;
+        this.productName = productName;
+        this.price = price.doubleValue();
+        this.totalQuantity = totalQuantity.longValue();
+        this.imageName = imageName;
+    }
+}
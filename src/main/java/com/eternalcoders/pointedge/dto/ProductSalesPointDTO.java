@@ -0,0 +1,14 @@
+package com.eternalcoders.pointedge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class ProductSalesPointDTO {
+    private LocalDate date;
+    private Long quantity;
+    private Double revenue;
+}
@@ -0,0 +1,35 @@
+package com.eternalcoders.pointedge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+public class ReportSnapshotDTO {
+    private final String report;
+    private final Integer version;
+    private final LocalDateTime asOf;
+    private final LocalDate periodStart;
+    private final LocalDate periodEnd;
+    // The stored JSON, written out as is; left out of snapshot listings
+    @JsonRawValue
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String data;
+
+    public ReportSnapshotDTO(String report, Integer version, LocalDateTime asOf, LocalDate periodStart, LocalDate periodEnd) {
+        this(report, version, asOf, periodStart, periodEnd, null);
+    }
+
+    public ReportSnapshotDTO(String report, Integer version, LocalDateTime asOf,
+                             LocalDate periodStart, LocalDate periodEnd, String data) {
+        this.report = report;
+        this.version = version;
+        this.asOf = asOf;
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.data = data;
+    }
+}
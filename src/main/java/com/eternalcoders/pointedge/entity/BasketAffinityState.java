@@ -0,0 +1,32 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the basket affinity job: the order date it has read up to, and the count-min sketch
+ * of product pair counts so far. A single row with id 1.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+
+@Entity
+@Table(name = "basket_affinity_state")
+public class BasketAffinityState {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    private LocalDateTime processedUntil;
+
+    // Deflated count-min counters
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] pairSketch;
+}
@@ -0,0 +1,48 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * HyperLogLog sketch of the distinct customer ids or order ids seen in order_details on one day
+ * for one loyalty tier, as recorded on the line. Merging the sketches of a window gives its
+ * distinct count within about 1%, however many days it spans.
+ * loyaltyTier is NOTLOYALTY when the line had none.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+
+@Entity
+@Table(name = "distinct_sketch_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_distinct_sketch_daily_cell", columnNames = {"kind", "statDate", "loyaltyTier"})
+})
+public class DailyDistinctSketch {
+    public enum Kind {
+        CUSTOMER,
+        ORDER
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Kind kind;
+
+    @Column(nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false, length = 20)
+    private String loyaltyTier;
+
+    // Deflated HyperLogLog registers
+    @Lob
+    @Column(nullable = false)
+    private byte[] registers;
+}
@@ -0,0 +1,48 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Daily order count and revenue rollup behind /orders/stats and /api/analytics/sales-over-time.
+ * Rows are kept at four grain levels, with 0 standing for "any": (brand, category), (brand, 0),
+ * (0, category) and (0, 0). An order is counted once in every cell it has at least one item in,
+ * so each filter combination reads exactly one row per day and the counts stay distinct.
+ * revenue sums order totals; itemSales sums price times quantity of the cell's own items.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+
+@Entity
+@Table(name = "order_stats_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_order_stats_daily_cell", columnNames = {"statDate", "brandId", "categoryId"})
+})
+public class DailyOrderStats {
+    public static final long ANY = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private Long brandId;
+
+    @Column(nullable = false)
+    private Long categoryId;
+
+    private long orderCount;
+
+    private double revenue;
+
+    private double itemSales;
+}
@@ -0,0 +1,84 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One cell of the discount analytics cube behind /api/v1/discount/analytics: the order_details
+ * lines of one time bucket for one (item, category, loyalty tier), summed. Buckets are written
+ * hourly as lines are saved and folded into daily buckets once they are 48 hours old.
+ * categoryId is 0 when the product had no category, loyaltyTier is NOTLOYALTY when the line had none.
+ * orderCount counts each order once, on the cell of its first line, so it can be summed across cells.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+
+@Entity
+@Table(name = "discount_analytics_cube", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_discount_analytics_cube_cell",
+                columnNames = {"grain", "bucketStart", "itemId", "categoryId", "loyaltyTier"})
+}, indexes = {
+        @Index(name = "idx_discount_analytics_cube_bucket", columnList = "bucketStart")
+})
+public class DiscountAnalyticsBucket {
+    public enum Grain {
+        HOUR,
+        DAY
+    }
+
+    public static final long NO_CATEGORY = 0L;
+    public static final String NO_TIER = "NOTLOYALTY";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Grain grain;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false, length = 20)
+    private String loyaltyTier;
+
+    private double amount;
+
+    private double totalDiscount;
+
+    private double itemDiscount;
+
+    private double categoryDiscount;
+
+    private double loyaltyDiscount;
+
+    private double pointsEarned;
+
+    private long lineCount;
+
+    private long orderCount;
+
+    private long itemDiscountLines;
+
+    private double itemDiscountAmount;
+
+    private long categoryDiscountLines;
+
+    private double categoryDiscountAmount;
+
+    private long loyaltyDiscountLines;
+
+    private double loyaltyDiscountAmount;
+}
@@ -0,0 +1,77 @@
+package com.eternalcoders.pointedge.entity;
+
+import com.eternalcoders.pointedge.dto.DiscountTotalsDTO;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Running totals of the order_details measures from the first day in the discount analytics cube
+ * through the end of statDate. There is a row for every completed day, so the totals of any run
+ * of days are the row of its last day minus the row of the day before it.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+
+@Entity
+@Table(name = "discount_prefix_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_discount_prefix_daily_date", columnNames = {"statDate"})
+})
+public class DiscountPrefixDay {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate statDate;
+
+    private double amount;
+
+    private double totalDiscount;
+
+    private double itemDiscount;
+
+    private double categoryDiscount;
+
+    private double loyaltyDiscount;
+
+    private double pointsEarned;
+
+    private long itemDiscountLines;
+
+    private double itemDiscountAmount;
+
+    private long categoryDiscountLines;
+
+    private double categoryDiscountAmount;
+
+    private long loyaltyDiscountLines;
+
+    private double loyaltyDiscountAmount;
+
+    public DiscountPrefixDay(LocalDate statDate, DiscountTotalsDTO totals) {
+        this.statDate = statDate;
+        this.amount = totals.getAmount();
+        this.totalDiscount = totals.getTotalDiscount();
+        this.itemDiscount = totals.getItemDiscount();
+        this.categoryDiscount = totals.getCategoryDiscount();
+        this.loyaltyDiscount = totals.getLoyaltyDiscount();
+        this.pointsEarned = totals.getPointsEarned();
+        this.itemDiscountLines = totals.getItemDiscountLines();
+        this.itemDiscountAmount = totals.getItemDiscountAmount();
+        this.categoryDiscountLines = totals.getCategoryDiscountLines();
+        this.categoryDiscountAmount = totals.getCategoryDiscountAmount();
+        this.loyaltyDiscountLines = totals.getLoyaltyDiscountLines();
+        this.loyaltyDiscountAmount = totals.getLoyaltyDiscountAmount();
+    }
+
+    public DiscountTotalsDTO toTotals() {
+        return new DiscountTotalsDTO(amount, totalDiscount, itemDiscount, categoryDiscount, loyaltyDiscount, pointsEarned,
+                itemDiscountLines, itemDiscountAmount, categoryDiscountLines, categoryDiscountAmount,
+                loyaltyDiscountLines, loyaltyDiscountAmount);
+    }
+}
@@ -10,7 +10,9 @@ import lombok.Setter;
 public class InvoiceItem {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "invoice_item_id")
+    @TableGenerator(name = "invoice_item_id", table = "id_generator", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "invoice_item", allocationSize = 50)
     private Long id;
 
     private Long productId; // Still needed for stock updates
@@ -18,10 +18,15 @@ import java.util.List;
 @AllArgsConstructor
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date_id", columnList = "orderDate, id"),
+        @Index(name = "idx_orders_employee_order_date", columnList = "employeeId, orderDate")
+})
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_id")
+    @TableGenerator(name = "orders_id", table = "id_generator", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
     @CreationTimestamp
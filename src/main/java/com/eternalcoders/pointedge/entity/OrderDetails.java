@@ -4,14 +4,17 @@ import com.eternalcoders.pointedge.entity.Customer;
 
 import java.time.LocalDateTime;
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
 import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -19,7 +22,12 @@ import lombok.NoArgsConstructor;
 import lombok.AccessLevel;
 
 @Entity
-@Table(name = "order_details")
+@Table(name = "order_details", indexes = {
+    @Index(name = "idx_order_details_datetime_item", columnList = "datetime, item_id"),
+    @Index(name = "idx_order_details_item_datetime", columnList = "item_id, datetime"),
+    @Index(name = "idx_order_details_customer_datetime", columnList = "customer_id, datetime"),
+    @Index(name = "idx_order_details_order_id", columnList = "order_id")
+})
 @Builder
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor
@@ -27,14 +35,17 @@ import lombok.AccessLevel;
 public class OrderDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_details_id")
+    @TableGenerator(name = "order_details_id", table = "id_generator", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "order_details", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(
         name = "customer_id",
         referencedColumnName = "id",
-        foreignKey = @ForeignKey(name = "fk_odc_customer"),
+        // MySQL cannot partition a table that has foreign keys; see OrderDetailsPartitionService
+        foreignKey = @ForeignKey(name = "fk_odc_customer", value = ConstraintMode.NO_CONSTRAINT),
         nullable = false
     )
     private Customer customer;
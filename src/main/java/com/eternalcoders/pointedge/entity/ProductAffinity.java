@@ -0,0 +1,32 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One entry of a product's "bought with" list: another product and the estimated number of
+ * orders that had both.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+
+@Entity
+@Table(name = "product_affinity", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_affinity_pair", columnNames = {"productId", "relatedProductId"})
+})
+public class ProductAffinity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long relatedProductId;
+
+    private long orderCount;
+}
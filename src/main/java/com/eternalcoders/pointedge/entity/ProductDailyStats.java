@@ -0,0 +1,36 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Units sold and units returned per product and day, behind /api/analytics/return-rates.
+ * Sales are dated by the order, returns by the day the return was recorded.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+
+@Entity
+@Table(name = "product_stats_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_stats_daily_cell", columnNames = {"statDate", "productId"})
+})
+public class ProductDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    private long quantitySold;
+
+    private long quantityReturned;
+}
@@ -0,0 +1,34 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One product's daily units sold and revenue over one calendar year, encoded as delta/varint
+ * columns (see DailySalesSeries). A product's history is one row per year it sold in.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+
+@Entity
+@Table(name = "product_sales_series", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_sales_series_year", columnNames = {"productId", "seriesYear"})
+})
+public class ProductSalesSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer seriesYear;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+}
@@ -0,0 +1,25 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Units sold and sales revenue of one product over all time, net of cash and card refunds.
+ * Backs the in-memory leaderboard behind /api/analytics/top-selling-products and /revenue.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+
+@Entity
+@Table(name = "product_sales_totals")
+public class ProductSalesTotal {
+    @Id
+    private Long productId;
+
+    private long quantitySold;
+
+    private double revenue;
+}
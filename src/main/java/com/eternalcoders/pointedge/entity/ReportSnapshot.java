@@ -0,0 +1,56 @@
+package com.eternalcoders.pointedge.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One precomputed run of a report: its result as gzipped JSON, numbered per report from 1 up.
+ * Rows are never changed once written; a refresh adds the next version.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+
+@Entity
+@Immutable
+@Table(name = "report_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_report_snapshots_version", columnNames = {"reportName", "version"})
+})
+public class ReportSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String reportName;
+
+    @Column(nullable = false)
+    private Integer version;
+
+    // When the report was computed
+    @Column(nullable = false)
+    private LocalDateTime asOf;
+
+    // The days the report covers; null for all-time reports
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] data;
+
+    public ReportSnapshot(String reportName, int version, LocalDateTime asOf,
+                          LocalDate periodStart, LocalDate periodEnd, byte[] data) {
+        this.reportName = reportName;
+        this.version = version;
+        this.asOf = asOf;
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.data = data;
+    }
+}
@@ -0,0 +1,9 @@
+package com.eternalcoders.pointedge.enums;
+
+// Bucket size of the sales-over-time series
+public enum SalesBucket {
+    HOUR,
+    DAY,
+    WEEK,
+    MONTH
+}
@@ -0,0 +1,11 @@
+package com.eternalcoders.pointedge.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class RefreshRateLimitedException extends RuntimeException {
+    public RefreshRateLimitedException(String message) {
+        super(message);
+    }
+}
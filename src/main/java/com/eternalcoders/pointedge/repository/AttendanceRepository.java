@@ -2,11 +2,17 @@ package com.eternalcoders.pointedge.repository;
 
 import com.eternalcoders.pointedge.entity.Attendance;
 import com.eternalcoders.pointedge.entity.Employee;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
@@ -15,4 +21,13 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     List<Attendance> findByEmployeeAndDate(Employee employee, LocalDate date);
     List<Attendance> findByEmployeeAndDateBetween(Employee employee, LocalDate startDate, LocalDate endDate);
     List<Attendance> findByDateBetween(LocalDate startDate, LocalDate endDate);
+
+    // MySQL Connector/J streams a forward-only result set row by row only for this fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT a FROM Attendance a LEFT JOIN FETCH a.employee ORDER BY a.id")
+    Stream<Attendance> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT a FROM Attendance a JOIN FETCH a.employee WHERE a.employee = :employee ORDER BY a.date DESC")
+    Stream<Attendance> streamByEmployeeNewestFirst(@Param("employee") Employee employee);
 }
\ No newline at end of file
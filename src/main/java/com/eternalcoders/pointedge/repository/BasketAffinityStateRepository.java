@@ -0,0 +1,17 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.entity.BasketAffinityState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface BasketAffinityStateRepository extends JpaRepository<BasketAffinityState, Long> {
+    // Held for the whole run, so runs on several instances take turns
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BasketAffinityState s WHERE s.id = :id")
+    Optional<BasketAffinityState> findForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,42 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.entity.DailyDistinctSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface DailyDistinctSketchRepository extends JpaRepository<DailyDistinctSketch, Long> {
+    List<DailyDistinctSketch> findByKindAndStatDateBetween(DailyDistinctSketch.Kind kind, LocalDate startDate, LocalDate endDate);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DailyDistinctSketch s WHERE s.kind = :kind AND s.statDate = :statDate AND s.loyaltyTier = :loyaltyTier")
+    Optional<DailyDistinctSketch> findForUpdate(
+            @Param("kind") DailyDistinctSketch.Kind kind,
+            @Param("statDate") LocalDate statDate,
+            @Param("loyaltyTier") String loyaltyTier
+    );
+
+    // Creates the cell with the given sketch unless a concurrent writer already has
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO distinct_sketch_daily (kind, stat_date, loyalty_tier, registers)
+            VALUES (:kind, :statDate, :loyaltyTier, :registers)
+            """, nativeQuery = true)
+    void insertIfAbsent(
+            @Param("kind") String kind,
+            @Param("statDate") LocalDate statDate,
+            @Param("loyaltyTier") String loyaltyTier,
+            @Param("registers") byte[] registers
+    );
+
+    @Modifying
+    @Query("DELETE FROM DailyDistinctSketch s WHERE s.statDate BETWEEN :startDate AND :endDate")
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,147 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.dto.OrderStatsDTO;
+import com.eternalcoders.pointedge.entity.DailyOrderStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface DailyOrderStatsRepository extends JpaRepository<DailyOrderStats, Long> {
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.OrderStatsDTO(
+                COALESCE(SUM(s.orderCount), 0),
+                COALESCE(SUM(s.revenue), 0)
+            )
+            FROM DailyOrderStats s
+            WHERE s.brandId = :brandId
+              AND s.categoryId = :categoryId
+              AND (:startDate IS NULL OR s.statDate >= :startDate)
+              AND (:endDate IS NULL OR s.statDate <= :endDate)
+            """)
+    OrderStatsDTO sumStats(
+            @Param("brandId") Long brandId,
+            @Param("categoryId") Long categoryId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_stats_daily (stat_date, brand_id, category_id, order_count, revenue, item_sales)
+            VALUES (:statDate, :brandId, :categoryId, :orderCount, :revenue, :itemSales)
+            ON DUPLICATE KEY UPDATE
+                order_count = order_count + VALUES(order_count),
+                revenue = revenue + VALUES(revenue),
+                item_sales = item_sales + VALUES(item_sales)
+            """, nativeQuery = true)
+    void addToCell(
+            @Param("statDate") LocalDate statDate,
+            @Param("brandId") Long brandId,
+            @Param("categoryId") Long categoryId,
+            @Param("orderCount") long orderCount,
+            @Param("revenue") double revenue,
+            @Param("itemSales") double itemSales
+    );
+
+    // [statDate, itemSales] of the all-brands, all-categories cells, oldest first, read as a cursor
+    // (MySQL Connector/J streams a result set row by row only for this fetch size)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("""
+            SELECT s.statDate, s.itemSales
+            FROM DailyOrderStats s
+            WHERE s.brandId = 0 AND s.categoryId = 0
+              AND (:startDate IS NULL OR s.statDate >= :startDate)
+              AND (:endDate IS NULL OR s.statDate <= :endDate)
+            ORDER BY s.statDate
+            """)
+    Stream<Object[]> streamDailySales(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("DELETE FROM DailyOrderStats s WHERE s.statDate >= :startDate AND s.statDate <= :endDate")
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /*
+     * Backfill queries. Each one first reduces orders to one row per (order, cell) so that an
+     * order with several matching items is counted, and its total summed, only once per cell,
+     * while the sales of all its matching items are added up.
+     */
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_stats_daily (stat_date, brand_id, category_id, order_count, revenue, item_sales)
+            SELECT x.stat_date, x.brand_id, x.category_id, COUNT(*), COALESCE(SUM(x.total), 0), SUM(x.item_sales)
+            FROM (
+                SELECT o.id, DATE(o.order_date) AS stat_date, p.brand_id, p.category_id, o.total,
+                    SUM(oi.price_per_unit * oi.quantity) AS item_sales
+                FROM orders o
+                JOIN order_item oi ON oi.order_id = o.id
+                JOIN products p ON p.id = oi.product_id
+                WHERE o.order_date >= :startDateTime AND o.order_date < :endDateTime
+                GROUP BY o.id, DATE(o.order_date), p.brand_id, p.category_id, o.total
+            ) x
+            GROUP BY x.stat_date, x.brand_id, x.category_id
+            """, nativeQuery = true)
+    int backfillBrandCategoryCells(@Param("startDateTime") LocalDateTime startDateTime,
+                                   @Param("endDateTime") LocalDateTime endDateTime);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_stats_daily (stat_date, brand_id, category_id, order_count, revenue, item_sales)
+            SELECT x.stat_date, x.brand_id, 0, COUNT(*), COALESCE(SUM(x.total), 0), SUM(x.item_sales)
+            FROM (
+                SELECT o.id, DATE(o.order_date) AS stat_date, p.brand_id, o.total,
+                    SUM(oi.price_per_unit * oi.quantity) AS item_sales
+                FROM orders o
+                JOIN order_item oi ON oi.order_id = o.id
+                JOIN products p ON p.id = oi.product_id
+                WHERE o.order_date >= :startDateTime AND o.order_date < :endDateTime
+                GROUP BY o.id, DATE(o.order_date), p.brand_id, o.total
+            ) x
+            GROUP BY x.stat_date, x.brand_id
+            """, nativeQuery = true)
+    int backfillBrandCells(@Param("startDateTime") LocalDateTime startDateTime,
+                           @Param("endDateTime") LocalDateTime endDateTime);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_stats_daily (stat_date, brand_id, category_id, order_count, revenue, item_sales)
+            SELECT x.stat_date, 0, x.category_id, COUNT(*), COALESCE(SUM(x.total), 0), SUM(x.item_sales)
+            FROM (
+                SELECT o.id, DATE(o.order_date) AS stat_date, p.category_id, o.total,
+                    SUM(oi.price_per_unit * oi.quantity) AS item_sales
+                FROM orders o
+                JOIN order_item oi ON oi.order_id = o.id
+                JOIN products p ON p.id = oi.product_id
+                WHERE o.order_date >= :startDateTime AND o.order_date < :endDateTime
+                GROUP BY o.id, DATE(o.order_date), p.category_id, o.total
+            ) x
+            GROUP BY x.stat_date, x.category_id
+            """, nativeQuery = true)
+    int backfillCategoryCells(@Param("startDateTime") LocalDateTime startDateTime,
+                              @Param("endDateTime") LocalDateTime endDateTime);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_stats_daily (stat_date, brand_id, category_id, order_count, revenue, item_sales)
+            SELECT x.stat_date, 0, 0, COUNT(*), COALESCE(SUM(x.total), 0), SUM(x.item_sales)
+            FROM (
+                SELECT o.id, DATE(o.order_date) AS stat_date, o.total,
+                    SUM(oi.price_per_unit * oi.quantity) AS item_sales
+                FROM orders o
+                JOIN order_item oi ON oi.order_id = o.id
+                WHERE o.order_date >= :startDateTime AND o.order_date < :endDateTime
+                GROUP BY o.id, DATE(o.order_date), o.total
+            ) x
+            GROUP BY x.stat_date
+            """, nativeQuery = true)
+    int backfillTotalCells(@Param("startDateTime") LocalDateTime startDateTime,
+                           @Param("endDateTime") LocalDateTime endDateTime);
+}
@@ -0,0 +1,180 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.dto.DiscountCubeCellDTO;
+import com.eternalcoders.pointedge.entity.DiscountAnalyticsBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DiscountAnalyticsBucketRepository extends JpaRepository<DiscountAnalyticsBucket, Long> {
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.DiscountCubeCellDTO(
+                b.itemId, b.categoryId, b.loyaltyTier,
+                SUM(b.amount), SUM(b.totalDiscount), SUM(b.itemDiscount),
+                SUM(b.categoryDiscount), SUM(b.loyaltyDiscount), SUM(b.pointsEarned),
+                SUM(b.lineCount), SUM(b.orderCount),
+                SUM(b.itemDiscountLines), SUM(b.itemDiscountAmount),
+                SUM(b.categoryDiscountLines), SUM(b.categoryDiscountAmount),
+                SUM(b.loyaltyDiscountLines), SUM(b.loyaltyDiscountAmount)
+            )
+            FROM DiscountAnalyticsBucket b
+            WHERE b.bucketStart >= :from
+            GROUP BY b.itemId, b.categoryId, b.loyaltyTier
+            """)
+    List<DiscountCubeCellDTO> sumCells(@Param("from") LocalDateTime from);
+
+    // [bucketStart, measures in DiscountTotalsDTO constructor order] per bucket, all cells together
+    @Query("""
+            SELECT b.bucketStart,
+                SUM(b.amount), SUM(b.totalDiscount), SUM(b.itemDiscount), SUM(b.categoryDiscount),
+                SUM(b.loyaltyDiscount), SUM(b.pointsEarned),
+                SUM(b.itemDiscountLines), SUM(b.itemDiscountAmount),
+                SUM(b.categoryDiscountLines), SUM(b.categoryDiscountAmount),
+                SUM(b.loyaltyDiscountLines), SUM(b.loyaltyDiscountAmount)
+            FROM DiscountAnalyticsBucket b
+            WHERE b.bucketStart >= :from AND b.bucketStart < :to
+            GROUP BY b.bucketStart
+            """)
+    List<Object[]> sumTotalsByBucket(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(b.bucketStart) FROM DiscountAnalyticsBucket b")
+    LocalDateTime findFirstBucketStart();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO discount_analytics_cube (grain, bucket_start, item_id, category_id, loyalty_tier,
+                amount, total_discount, item_discount, category_discount, loyalty_discount, points_earned,
+                line_count, order_count, item_discount_lines, item_discount_amount,
+                category_discount_lines, category_discount_amount, loyalty_discount_lines, loyalty_discount_amount)
+            VALUES ('HOUR', :bucketStart, :itemId, :categoryId, :loyaltyTier,
+                :amount, :totalDiscount, :itemDiscount, :categoryDiscount, :loyaltyDiscount, :pointsEarned,
+                :lineCount, :orderCount, :itemDiscountLines, :itemDiscountAmount,
+                :categoryDiscountLines, :categoryDiscountAmount, :loyaltyDiscountLines, :loyaltyDiscountAmount)
+            ON DUPLICATE KEY UPDATE
+                amount = amount + VALUES(amount),
+                total_discount = total_discount + VALUES(total_discount),
+                item_discount = item_discount + VALUES(item_discount),
+                category_discount = category_discount + VALUES(category_discount),
+                loyalty_discount = loyalty_discount + VALUES(loyalty_discount),
+                points_earned = points_earned + VALUES(points_earned),
+                line_count = line_count + VALUES(line_count),
+                order_count = order_count + VALUES(order_count),
+                item_discount_lines = item_discount_lines + VALUES(item_discount_lines),
+                item_discount_amount = item_discount_amount + VALUES(item_discount_amount),
+                category_discount_lines = category_discount_lines + VALUES(category_discount_lines),
+                category_discount_amount = category_discount_amount + VALUES(category_discount_amount),
+                loyalty_discount_lines = loyalty_discount_lines + VALUES(loyalty_discount_lines),
+                loyalty_discount_amount = loyalty_discount_amount + VALUES(loyalty_discount_amount)
+            """, nativeQuery = true)
+    void addToHourCell(
+            @Param("bucketStart") LocalDateTime bucketStart,
+            @Param("itemId") Long itemId,
+            @Param("categoryId") Long categoryId,
+            @Param("loyaltyTier") String loyaltyTier,
+            @Param("amount") double amount,
+            @Param("totalDiscount") double totalDiscount,
+            @Param("itemDiscount") double itemDiscount,
+            @Param("categoryDiscount") double categoryDiscount,
+            @Param("loyaltyDiscount") double loyaltyDiscount,
+            @Param("pointsEarned") double pointsEarned,
+            @Param("lineCount") long lineCount,
+            @Param("orderCount") long orderCount,
+            @Param("itemDiscountLines") long itemDiscountLines,
+            @Param("itemDiscountAmount") double itemDiscountAmount,
+            @Param("categoryDiscountLines") long categoryDiscountLines,
+            @Param("categoryDiscountAmount") double categoryDiscountAmount,
+            @Param("loyaltyDiscountLines") long loyaltyDiscountLines,
+            @Param("loyaltyDiscountAmount") double loyaltyDiscountAmount
+    );
+
+    // Folds hourly buckets older than the horizon into daily buckets; the hourly rows are removed by deleteHoursBefore
+    @Modifying
+    @Query(value = """
+            INSERT INTO discount_analytics_cube (grain, bucket_start, item_id, category_id, loyalty_tier,
+                amount, total_discount, item_discount, category_discount, loyalty_discount, points_earned,
+                line_count, order_count, item_discount_lines, item_discount_amount,
+                category_discount_lines, category_discount_amount, loyalty_discount_lines, loyalty_discount_amount)
+            SELECT 'DAY', TIMESTAMP(DATE(h.bucket_start)), h.item_id, h.category_id, h.loyalty_tier,
+                SUM(h.amount), SUM(h.total_discount), SUM(h.item_discount), SUM(h.category_discount),
+                SUM(h.loyalty_discount), SUM(h.points_earned), SUM(h.line_count), SUM(h.order_count),
+                SUM(h.item_discount_lines), SUM(h.item_discount_amount),
+                SUM(h.category_discount_lines), SUM(h.category_discount_amount),
+                SUM(h.loyalty_discount_lines), SUM(h.loyalty_discount_amount)
+            FROM discount_analytics_cube h
+            WHERE h.grain = 'HOUR' AND h.bucket_start < :horizon
+            GROUP BY DATE(h.bucket_start), h.item_id, h.category_id, h.loyalty_tier
+            ON DUPLICATE KEY UPDATE
+                amount = amount + VALUES(amount),
+                total_discount = total_discount + VALUES(total_discount),
+                item_discount = item_discount + VALUES(item_discount),
+                category_discount = category_discount + VALUES(category_discount),
+                loyalty_discount = loyalty_discount + VALUES(loyalty_discount),
+                points_earned = points_earned + VALUES(points_earned),
+                line_count = line_count + VALUES(line_count),
+                order_count = order_count + VALUES(order_count),
+                item_discount_lines = item_discount_lines + VALUES(item_discount_lines),
+                item_discount_amount = item_discount_amount + VALUES(item_discount_amount),
+                category_discount_lines = category_discount_lines + VALUES(category_discount_lines),
+                category_discount_amount = category_discount_amount + VALUES(category_discount_amount),
+                loyalty_discount_lines = loyalty_discount_lines + VALUES(loyalty_discount_lines),
+                loyalty_discount_amount = loyalty_discount_amount + VALUES(loyalty_discount_amount)
+            """, nativeQuery = true)
+    int rollUpHoursBefore(@Param("horizon") LocalDateTime horizon);
+
+    @Modifying
+    @Query("DELETE FROM DiscountAnalyticsBucket b WHERE b.grain = com.eternalcoders.pointedge.entity.DiscountAnalyticsBucket.Grain.HOUR AND b.bucketStart < :horizon")
+    int deleteHoursBefore(@Param("horizon") LocalDateTime horizon);
+
+    @Modifying
+    @Query("DELETE FROM DiscountAnalyticsBucket b WHERE b.bucketStart >= :from AND b.bucketStart < :to")
+    int deleteRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /*
+     * Rebuilds hourly buckets from order_details. All lines of an order share one datetime, so the
+     * order is counted on its lowest-id line, the first one the writer saves, as the incremental path does.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO discount_analytics_cube (grain, bucket_start, item_id, category_id, loyalty_tier,
+                amount, total_discount, item_discount, category_discount, loyalty_discount, points_earned,
+                line_count, order_count, item_discount_lines, item_discount_amount,
+                category_discount_lines, category_discount_amount, loyalty_discount_lines, loyalty_discount_amount)
+            SELECT 'HOUR', x.bucket_start, x.item_id, x.category_id, x.loyalty_tier,
+                SUM(x.amount), SUM(x.total_discount), SUM(x.item_discount), SUM(x.category_discount),
+                SUM(x.loyalty_discount), SUM(x.points_earned), COUNT(*), SUM(x.first_line),
+                SUM(CASE WHEN x.item_discount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN x.item_discount > 0 THEN x.amount ELSE 0 END),
+                SUM(CASE WHEN x.category_discount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN x.category_discount > 0 THEN x.amount ELSE 0 END),
+                SUM(CASE WHEN x.loyalty_discount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN x.loyalty_discount > 0 THEN x.amount ELSE 0 END)
+            FROM (
+                SELECT DATE_FORMAT(od.datetime, '%Y-%m-%d %H:00:00') AS bucket_start,
+                    od.item_id,
+                    COALESCE(p.category_id, 0) AS category_id,
+                    COALESCE(od.loyalty_tier, 'NOTLOYALTY') AS loyalty_tier,
+                    od.amount,
+                    od.total_discount,
+                    COALESCE(od.item_discount, 0) AS item_discount,
+                    COALESCE(od.category_discount, 0) AS category_discount,
+                    COALESCE(od.loyalty_discount, 0) AS loyalty_discount,
+                    COALESCE(od.points_earned, 0) AS points_earned,
+                    CASE WHEN od.id = f.first_id THEN 1 ELSE 0 END AS first_line
+                FROM order_details od
+                JOIN (
+                    SELECT order_id, MIN(id) AS first_id
+                    FROM order_details
+                    WHERE datetime >= :from AND datetime < :to
+                    GROUP BY order_id
+                ) f ON f.order_id = od.order_id
+                LEFT JOIN products p ON p.id = od.item_id
+                WHERE od.datetime >= :from AND od.datetime < :to
+            ) x
+            GROUP BY x.bucket_start, x.item_id, x.category_id, x.loyalty_tier
+            """, nativeQuery = true)
+    int backfillHours(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,25 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.entity.DiscountPrefixDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface DiscountPrefixDayRepository extends JpaRepository<DiscountPrefixDay, Long> {
+    Optional<DiscountPrefixDay> findByStatDate(LocalDate statDate);
+
+    Optional<DiscountPrefixDay> findTopByOrderByStatDateAsc();
+
+    Optional<DiscountPrefixDay> findTopByOrderByStatDateDesc();
+
+    List<DiscountPrefixDay> findByStatDateGreaterThanEqualOrderByStatDate(LocalDate statDate);
+
+    @Modifying
+    @Query("DELETE FROM DiscountPrefixDay p WHERE p.statDate >= :statDate")
+    int deleteFrom(@Param("statDate") LocalDate statDate);
+}
@@ -1,7 +1,6 @@
 package com.eternalcoders.pointedge.repository;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -111,6 +110,14 @@ public interface DiscountRepository extends JpaRepository<Discount, Long> {
        "d.loyaltyType = :tier")
     List<Discount> findActiveLoyaltyDiscountsByTypeAndTier(@Param("tier") Discount.LoyaltyTier tier);
  
+    // get active item discounts for several items at once
+    @Query("SELECT d FROM Discount d WHERE d.item.id IN :itemIds AND d.isActive = true")
+    List<Discount> findActiveItemDiscountsByItemIds(@Param("itemIds") Collection<Long> itemIds);
+
+    // get active category discounts for several categories at once
+    @Query("SELECT d FROM Discount d WHERE d.category.id IN :categoryIds AND d.isActive = true")
+    List<Discount> findActiveCategoryDiscountsByCategoryIds(@Param("categoryIds") Collection<Long> categoryIds);
+
     // find items for given category
     @Query("SELECT p.id, p.category.id FROM Product p WHERE p.id IN :itemIds")
     List<Object[]> findCategoryIdsByItemIds(@Param("itemIds") Collection<Long> itemIds);
@@ -136,29 +143,6 @@ public interface DiscountRepository extends JpaRepository<Discount, Long> {
     @Query("SELECT p.name FROM Product p WHERE p.id = :itemId")
         Optional<String> findProductNameById(@Param("itemId") Long itemId);
 
-    //update orderdetails table
-    @Modifying
-    @Query(value = "INSERT INTO order_details (" +
-        "order_id, customer_id, item_id, discount_id, datetime, amount, " +
-        "total_discount, item_discount, category_discount, " +
-        "loyalty_discount, loyalty_tier, points_earned) " +
-        "VALUES (:orderId, :customerId, :itemId, :discountId, :datetime, :amount, " +
-        ":totalDiscount, :itemDiscount, :categoryDiscount, " +
-        ":loyaltyDiscount, :loyaltyTier, :pointsEarned)", nativeQuery = true)
-    void saveOrderDetails(
-        @Param("orderId") String orderId,
-        @Param("customerId") Long customerId,
-        @Param("itemId") Long itemId,
-        @Param("discountId") Long discountId,
-        @Param("datetime") LocalDateTime datetime,
-        @Param("amount") Double amount,
-        @Param("totalDiscount") Double totalDiscount,
-        @Param("itemDiscount") Double itemDiscount,
-        @Param("categoryDiscount") Double categoryDiscount,
-        @Param("loyaltyDiscount") Double loyaltyDiscount,
-        @Param("loyaltyTier") String loyaltyTier,
-        @Param("pointsEarned") Double pointsEarned);
-
     // update customer tier by phone number
     @Modifying
     @Query("UPDATE Customer c SET c.tier = :tier WHERE c.phone = :phone")
@@ -1,12 +1,16 @@
 package com.eternalcoders.pointedge.repository;
 
+import com.eternalcoders.pointedge.dto.DiscountCubeCellDTO;
+import com.eternalcoders.pointedge.dto.DiscountTotalsDTO;
 import com.eternalcoders.pointedge.entity.OrderDetails;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -76,12 +80,6 @@ public interface OrderDetailsRepository extends JpaRepository<OrderDetails, Long
     @Query("SELECT COUNT(o) FROM OrderDetails o WHERE o.loyaltyTier = :tier AND o.datetime BETWEEN :startDate AND :endDate")
     Long countLoyaltyDiscountByTierInDateRange(@Param("tier") String tier, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
-    // Top discounted items
-    @Query("SELECT o.itemId, SUM(o.itemDiscount) as totalDiscount, COUNT(o) as count FROM OrderDetails o " +
-           "WHERE o.datetime BETWEEN :startDate AND :endDate AND o.itemDiscount > 0 " +
-           "GROUP BY o.itemId ORDER BY totalDiscount DESC")
-    List<Object[]> findTopDiscountedItemsInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-    
     // Count discounts by range
     @Query("SELECT COUNT(o) FROM OrderDetails o WHERE o.totalDiscount < :threshold AND o.datetime BETWEEN :startDate AND :endDate")
     Long countDiscountsBelowThreshold(@Param("threshold") Double threshold, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
@@ -101,12 +99,23 @@ public interface OrderDetailsRepository extends JpaRepository<OrderDetails, Long
        @Query("SELECT COUNT(o) FROM OrderDetails o WHERE o.loyaltyDiscount > 0 AND o.datetime BETWEEN :startDate AND :endDate")
        Long countOrdersWithLoyaltyDiscountInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
-       @Query("SELECT c.tier AS tier, COUNT(DISTINCT c.id) AS count " +
-              "FROM OrderDetails o JOIN o.customer c " +
+       // Distinct customers per loyalty tier recorded on the line; the exact counterpart of the distinct-count sketches
+       @Query("SELECT COALESCE(o.loyaltyTier, 'NOTLOYALTY'), COUNT(DISTINCT o.customer.id) " +
+              "FROM OrderDetails o " +
               "WHERE o.datetime BETWEEN :startDate AND :endDate " +
-              "GROUP BY c.tier")
-       List<Object[]> countCustomersByTierInDateRange(@Param("startDate") LocalDateTime startDate, 
-                                                 @Param("endDate") LocalDateTime endDate);
+              "GROUP BY COALESCE(o.loyaltyTier, 'NOTLOYALTY')")
+       List<Object[]> countCustomersByLineTierInDateRange(@Param("startDate") LocalDateTime startDate,
+                                                          @Param("endDate") LocalDateTime endDate);
+
+       // [tier, customer id] and [tier, order id] pairs, fed into distinct-count sketches
+       @Query("SELECT DISTINCT COALESCE(o.loyaltyTier, 'NOTLOYALTY'), o.customer.id FROM OrderDetails o " +
+              "WHERE o.datetime >= :from AND o.datetime < :to")
+       List<Object[]> findTierCustomerIds(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+       @Query("SELECT DISTINCT COALESCE(o.loyaltyTier, 'NOTLOYALTY'), o.orderId FROM OrderDetails o " +
+              "WHERE o.datetime >= :from AND o.datetime < :to")
+       List<Object[]> findTierOrderIds(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
        @Query("SELECT COUNT(c.id) FROM Customer c")
        Long countTotalCustomers();
 
@@ -126,16 +135,9 @@ public interface OrderDetailsRepository extends JpaRepository<OrderDetails, Long
        List<Object[]> sumLoyaltyDiscountByTierInDateRange(@Param("startDate") LocalDateTime startDate, 
                                                         @Param("endDate") LocalDateTime endDate);
 
-       // Item discount analytics
-       @Query("SELECT o.itemId, SUM(o.amount) as totalAmount, SUM(o.itemDiscount) as totalDiscount, COUNT(o) as count " +
-              "FROM OrderDetails o " +
-              "WHERE o.itemDiscount > 0 AND o.datetime BETWEEN :startDate AND :endDate " +
-              "GROUP BY o.itemId " +
-              "ORDER BY count DESC")
-       List<Object[]> findItemDiscountAnalyticsByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-
-       @Query("SELECT p.name FROM Product p WHERE p.id = :id")
-       Optional<String> findNameById(@Param("id") Long id);
+       // [id, name] pairs for the given products
+       @Query("SELECT p.id, p.name FROM Product p WHERE p.id IN :ids")
+       List<Object[]> findNamesByIds(@Param("ids") Collection<Long> ids);
 
        // Category discount analytics
        @Query("SELECT p.category.id, SUM(o.amount) as totalAmount, SUM(o.categoryDiscount) as totalDiscount, COUNT(o) as count " +
@@ -145,9 +147,9 @@ public interface OrderDetailsRepository extends JpaRepository<OrderDetails, Long
               "ORDER BY count DESC")
        List<Object[]> findCategoryDiscountAnalyticsByDateRange(@Param("startDate") LocalDateTime startDate, 
                                                                @Param("endDate") LocalDateTime endDate);
-       // Category name by ID
-       @Query("SELECT c.name FROM Category c WHERE c.id = :id")
-       Optional<String> findCategoryNameById(@Param("id") Long id);
+       // [id, name] pairs for the given categories
+       @Query("SELECT c.id, c.name FROM Category c WHERE c.id IN :ids")
+       List<Object[]> findCategoryNamesByIds(@Param("ids") Collection<Long> ids);
 
        // Loyalty discount analytics
        @Query("SELECT SUM(o.pointsEarned) FROM OrderDetails o WHERE o.datetime BETWEEN :startDate AND :endDate")
@@ -156,92 +158,73 @@ public interface OrderDetailsRepository extends JpaRepository<OrderDetails, Long
        @Query("SELECT SUM(o.amount) FROM OrderDetails o WHERE o.datetime BETWEEN :startDate AND :endDate")
        Double sumTotalAmountInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
-       @Query("SELECT SUM(o.amount) FROM OrderDetails o WHERE o.loyaltyDiscount > 0 AND o.datetime BETWEEN :startDate AND :endDate")
-       Double sumAmountWithLoyaltyDiscountInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-
-       @Query("SELECT SUM(o.amount) FROM OrderDetails o WHERE o.itemDiscount > 0 AND o.datetime BETWEEN :startDate AND :endDate")
-       Double sumAmountWithItemDiscountInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-
-       @Query("SELECT SUM(o.amount) FROM OrderDetails o WHERE o.categoryDiscount > 0 AND o.datetime BETWEEN :startDate AND :endDate")
-       Double sumAmountWithCategoryDiscountInDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-
        @Query("SELECT COUNT(DISTINCT o.orderId) FROM OrderDetails o WHERE " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
+           "o.datetime BETWEEN :startDate AND :endDate")
     Long countOrdersByDateRange(@Param("startDate") LocalDateTime startDate, 
                               @Param("endDate") LocalDateTime endDate);
 
-    @Query("SELECT COUNT(o) FROM OrderDetails o WHERE o.itemDiscount > 0 AND " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
-    Long countItemDiscountsByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                     @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT COUNT(o) FROM OrderDetails o WHERE o.categoryDiscount > 0 AND " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
-    Long countCategoryDiscountsByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                         @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT COUNT(o) FROM OrderDetails o WHERE o.loyaltyDiscount > 0 AND " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
-    Long countLoyaltyDiscountsByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                        @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT SUM(o.totalDiscount) FROM OrderDetails o WHERE " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
-    Double sumTotalDiscountByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                     @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT SUM(o.itemDiscount) FROM OrderDetails o WHERE " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
-    Double sumItemDiscountByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                    @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT SUM(o.categoryDiscount) FROM OrderDetails o WHERE " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
-    Double sumCategoryDiscountByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                        @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT SUM(o.loyaltyDiscount) FROM OrderDetails o WHERE " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
-    Double sumLoyaltyDiscountByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                       @Param("endDate") LocalDateTime endDate);
-
     @Query("SELECT o.loyaltyTier, COUNT(o) FROM OrderDetails o WHERE o.loyaltyDiscount > 0 AND " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate) " +
+           "o.datetime BETWEEN :startDate AND :endDate " +
            "GROUP BY o.loyaltyTier")
     List<Object[]> countLoyaltyDiscountsByTierAndDateRange(@Param("startDate") LocalDateTime startDate, 
                                                          @Param("endDate") LocalDateTime endDate);
 
-                                                         @Query("SELECT o.itemId, SUM(o.amount), SUM(o.itemDiscount), COUNT(o) " +
-                                                         "FROM OrderDetails o WHERE o.itemDiscount > 0 AND " +
-                                                         "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-                                                         "(:endDate IS NULL OR o.datetime <= :endDate) " +
-                                                         "GROUP BY o.itemId ORDER BY COUNT(o) DESC")
-                                                  List<Object[]> findTopItemDiscountsByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                                                                               @Param("endDate") LocalDateTime endDate);
-
-                                                                                               @Query("SELECT o.itemId, SUM(o.amount), SUM(o.categoryDiscount), COUNT(o) " +
-                                                                                               "FROM OrderDetails o WHERE o.categoryDiscount > 0 AND " +
-                                                                                               "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-                                                                                               "(:endDate IS NULL OR o.datetime <= :endDate) " +
-                                                                                               "GROUP BY o.itemId ORDER BY COUNT(o) DESC")
-                                                                                        List<Object[]> findTopCategoryDiscountsByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                                                                                                                         @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT SUM(o.amount), SUM(o.pointsEarned) FROM OrderDetails o WHERE " +
-           "(:startDate IS NULL OR o.datetime >= :startDate) AND " +
-           "(:endDate IS NULL OR o.datetime <= :endDate)")
-    List<Object[]> sumAmountAndPointsByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                               @Param("endDate") LocalDateTime endDate);
-
-       
+    @Query("SELECT o.itemId, p.name, SUM(o.amount), SUM(o.itemDiscount), COUNT(o) " +
+           "FROM OrderDetails o LEFT JOIN Product p ON p.id = o.itemId " +
+           "WHERE o.itemDiscount > 0 AND " +
+           "o.datetime BETWEEN :startDate AND :endDate " +
+           "GROUP BY o.itemId, p.name ORDER BY COUNT(o) DESC, o.itemId")
+    List<Object[]> findTopItemDiscountsByDateRange(@Param("startDate") LocalDateTime startDate, 
+                                                 @Param("endDate") LocalDateTime endDate,
+                                                 Limit limit);
+
+    @Query("SELECT c.id, c.name, SUM(o.amount), SUM(o.categoryDiscount), COUNT(o) " +
+           "FROM OrderDetails o JOIN Product p ON p.id = o.itemId JOIN p.category c " +
+           "WHERE o.categoryDiscount > 0 AND " +
+           "o.datetime BETWEEN :startDate AND :endDate " +
+           "GROUP BY c.id, c.name ORDER BY COUNT(o) DESC")
+    List<Object[]> findTopCategoryDiscountsByDateRange(@Param("startDate") LocalDateTime startDate, 
+                                                     @Param("endDate") LocalDateTime endDate);
+
+    // Range totals straight from order_details, for the partial days at the edges of a prefix-sum range
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.DiscountTotalsDTO(
+                SUM(o.amount), SUM(o.totalDiscount), SUM(COALESCE(o.itemDiscount, 0.0)),
+                SUM(COALESCE(o.categoryDiscount, 0.0)), SUM(COALESCE(o.loyaltyDiscount, 0.0)),
+                SUM(COALESCE(o.pointsEarned, 0.0)),
+                SUM(CASE WHEN o.itemDiscount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN o.itemDiscount > 0 THEN o.amount ELSE 0.0 END),
+                SUM(CASE WHEN o.categoryDiscount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN o.categoryDiscount > 0 THEN o.amount ELSE 0.0 END),
+                SUM(CASE WHEN o.loyaltyDiscount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN o.loyaltyDiscount > 0 THEN o.amount ELSE 0.0 END)
+            )
+            FROM OrderDetails o
+            WHERE o.datetime >= :from AND o.datetime < :to
+            """)
+    DiscountTotalsDTO sumTotals(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Same measures as the discount analytics cube, summed straight from order_details for the partial-bucket edges of a range
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.DiscountCubeCellDTO(
+                o.itemId, COALESCE(c.id, 0L), COALESCE(o.loyaltyTier, 'NOTLOYALTY'),
+                SUM(o.amount), SUM(o.totalDiscount), SUM(COALESCE(o.itemDiscount, 0.0)),
+                SUM(COALESCE(o.categoryDiscount, 0.0)), SUM(COALESCE(o.loyaltyDiscount, 0.0)),
+                SUM(COALESCE(o.pointsEarned, 0.0)),
+                COUNT(o),
+                SUM(CASE WHEN o.id = (SELECT MIN(f.id) FROM OrderDetails f WHERE f.orderId = o.orderId) THEN 1 ELSE 0 END),
+                SUM(CASE WHEN o.itemDiscount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN o.itemDiscount > 0 THEN o.amount ELSE 0.0 END),
+                SUM(CASE WHEN o.categoryDiscount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN o.categoryDiscount > 0 THEN o.amount ELSE 0.0 END),
+                SUM(CASE WHEN o.loyaltyDiscount > 0 THEN 1 ELSE 0 END),
+                SUM(CASE WHEN o.loyaltyDiscount > 0 THEN o.amount ELSE 0.0 END)
+            )
+            FROM OrderDetails o
+            LEFT JOIN Product p ON p.id = o.itemId
+            LEFT JOIN p.category c
+            WHERE o.datetime >= :from AND o.datetime < :to
+            GROUP BY o.itemId, COALESCE(c.id, 0L), COALESCE(o.loyaltyTier, 'NOTLOYALTY')
+            """)
+    List<DiscountCubeCellDTO> sumCubeCells(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
-
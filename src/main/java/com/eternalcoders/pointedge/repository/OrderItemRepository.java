@@ -33,43 +33,35 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
             Pageable pageable
     );
 
+    // [day, hour, sales] for orders in [from, to), oldest first
     @Query("""
-                SELECT new com.eternalcoders.pointedge.dto.TopSellingProductDTO(
-                    oi.product.id, oi.product.name, SUM(oi.quantity)
-                )
+                SELECT CAST(o.orderDate AS LocalDate), HOUR(o.orderDate), SUM(CAST(oi.pricePerUnit * oi.quantity AS double))
                 FROM OrderItem oi
-                GROUP BY oi.product.id, oi.product.name
-                ORDER BY SUM(oi.quantity) DESC
+                JOIN oi.order o
+                WHERE o.orderDate >= :from AND o.orderDate < :to
+                GROUP BY CAST(o.orderDate AS LocalDate), HOUR(o.orderDate)
+                ORDER BY CAST(o.orderDate AS LocalDate), HOUR(o.orderDate)
             """)
-    List<TopSellingProductDTO> findTopSellingProducts();
+    List<Object[]> sumSalesByHour(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
+    // [productId, day, quantity, sales] for orders in [from, to), by product then day
     @Query("""
-                SELECT new com.eternalcoders.pointedge.dto.DailySalesDTO(
-                    o.orderDate, SUM(CAST(oi.pricePerUnit * oi.quantity AS double))
-                )
+                SELECT oi.product.id, CAST(o.orderDate AS LocalDate), SUM(oi.quantity), SUM(CAST(oi.pricePerUnit * oi.quantity AS double))
                 FROM OrderItem oi
                 JOIN oi.order o
-                GROUP BY o.orderDate
-                ORDER BY o.orderDate
+                WHERE o.orderDate >= :from AND o.orderDate < :to
+                GROUP BY oi.product.id, CAST(o.orderDate AS LocalDate)
+                ORDER BY oi.product.id, CAST(o.orderDate AS LocalDate)
             """)
-    List<DailySalesDTO> getDailySales();
+    List<Object[]> sumDailySalesByProduct(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
+    // [orderId, productId] of the orders placed in [from, to), an order's items together
     @Query("""
-                SELECT new com.eternalcoders.pointedge.dto.ProductRevenueDTO(
-                    oi.product.id, oi.product.name, SUM(CAST(oi.pricePerUnit * oi.quantity AS double))
-                )
+                SELECT o.id, oi.product.id
                 FROM OrderItem oi
-                GROUP BY oi.product.id, oi.product.name
-                ORDER BY SUM(oi.pricePerUnit * oi.quantity) DESC
-            """)
-    List<ProductRevenueDTO> getRevenueByProduct();
-
-    @Query("""
-                SELECT new com.eternalcoders.pointedge.dto.CategoryDistributionDTO(
-                    p.category.name, COUNT(p.id)
-                )
-                FROM Product p
-                GROUP BY p.category.name
+                JOIN oi.order o
+                WHERE o.orderDate >= :from AND o.orderDate < :to
+                ORDER BY o.orderDate, o.id
             """)
-    List<CategoryDistributionDTO> getCategoryDistribution();
+    List<Object[]> findOrderProducts(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
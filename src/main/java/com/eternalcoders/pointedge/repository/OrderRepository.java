@@ -1,13 +1,17 @@
 package com.eternalcoders.pointedge.repository;
 
+import com.eternalcoders.pointedge.dto.OrderLineDTO;
 import com.eternalcoders.pointedge.dto.OrderStatsDTO;
+import com.eternalcoders.pointedge.dto.OrderSummaryDTO;
 import com.eternalcoders.pointedge.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -32,6 +36,9 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             @Param("endDateTime") LocalDateTime endDateTime
     );
 
+    @Query("SELECT MIN(o.orderDate) FROM Order o")
+    LocalDateTime findFirstOrderDate();
+
     /**
      * Find all orders by employee ID
      */
@@ -103,4 +110,53 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     @Query("SELECT COUNT(o) FROM Order o WHERE o.employeeId = :employeeId")
     Long countTotalOrdersByEmployee(@Param("employeeId") Long employeeId);
+
+    /**
+     * Count total orders for several employees at once, as [employeeId, count] rows
+     */
+    @Query("SELECT o.employeeId, COUNT(o) FROM Order o WHERE o.employeeId IN :employeeIds GROUP BY o.employeeId")
+    List<Object[]> countTotalOrdersByEmployees(@Param("employeeIds") Collection<Long> employeeIds);
+
+    /**
+     * Keyset page of order summaries, newest first. Rows strictly after the (cursorDate, cursorId)
+     * position are returned, so paging cost does not grow with depth. Items are not loaded.
+     */
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.OrderSummaryDTO(
+                o.id, o.orderDate, o.customerName, o.customerPhone, o.employeeId, o.cashierName,
+                o.amount, o.totalDiscount, o.total, o.cashAmount, o.cardAmount
+            )
+            FROM Order o
+            WHERE (:cursorDate IS NULL OR o.orderDate < :cursorDate
+                   OR (o.orderDate = :cursorDate AND o.id < :cursorId))
+              AND (:employeeId IS NULL OR o.employeeId = :employeeId)
+              AND (:customerName IS NULL OR LOWER(o.customerName) LIKE LOWER(CONCAT('%', :customerName, '%')))
+              AND (:cashierName IS NULL OR LOWER(o.cashierName) LIKE LOWER(CONCAT('%', :cashierName, '%')))
+              AND (:startDateTime IS NULL OR o.orderDate >= :startDateTime)
+              AND (:endDateTime IS NULL OR o.orderDate < :endDateTime)
+            ORDER BY o.orderDate DESC, o.id DESC
+            """)
+    List<OrderSummaryDTO> findOrderSummariesBefore(
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            @Param("employeeId") Long employeeId,
+            @Param("customerName") String customerName,
+            @Param("cashierName") String cashierName,
+            @Param("startDateTime") LocalDateTime startDateTime,
+            @Param("endDateTime") LocalDateTime endDateTime,
+            Limit limit
+    );
+
+    /**
+     * Item lines for a set of orders, fetched in one query for pages that ask for items
+     */
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.OrderLineDTO(
+                oi.order.id, oi.product.id, oi.product.name, oi.quantity, oi.pricePerUnit
+            )
+            FROM OrderItem oi
+            WHERE oi.order.id IN :orderIds
+            ORDER BY oi.id
+            """)
+    List<OrderLineDTO> findOrderLines(@Param("orderIds") Collection<Long> orderIds);
 }
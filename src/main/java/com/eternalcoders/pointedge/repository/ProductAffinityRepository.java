@@ -0,0 +1,31 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.entity.ProductAffinity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductAffinityRepository extends JpaRepository<ProductAffinity, Long> {
+    // [relatedProductId, name, orderCount], most often bought together first
+    @Query("""
+            SELECT a.relatedProductId, p.name, a.orderCount
+            FROM ProductAffinity a
+            JOIN Product p ON p.id = a.relatedProductId
+            WHERE a.productId = :productId
+            ORDER BY a.orderCount DESC, a.relatedProductId
+            """)
+    List<Object[]> findBoughtWith(@Param("productId") Long productId, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM ProductAffinity a WHERE a.productId IN :productIds")
+    int deleteByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM ProductAffinity a")
+    int deleteAllLists();
+}
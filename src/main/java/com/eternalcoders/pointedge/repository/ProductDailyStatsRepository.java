@@ -0,0 +1,124 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.dto.ProductOrderTotalDTO;
+import com.eternalcoders.pointedge.dto.ProductReturnRateDTO;
+import com.eternalcoders.pointedge.entity.ProductDailyStats;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductDailyStatsRepository extends JpaRepository<ProductDailyStats, Long> {
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_stats_daily (stat_date, product_id, quantity_sold, quantity_returned)
+            VALUES (:statDate, :productId, :quantitySold, :quantityReturned)
+            ON DUPLICATE KEY UPDATE
+                quantity_sold = quantity_sold + VALUES(quantity_sold),
+                quantity_returned = quantity_returned + VALUES(quantity_returned)
+            """, nativeQuery = true)
+    void addToCell(
+            @Param("statDate") LocalDate statDate,
+            @Param("productId") Long productId,
+            @Param("quantitySold") long quantitySold,
+            @Param("quantityReturned") long quantityReturned
+    );
+
+    // Products with returns in the range, highest rate first; nothing sold in the range counts as one
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.ProductReturnRateDTO(
+                s.productId, p.name,
+                CAST(SUM(s.quantityReturned) AS double) / COALESCE(NULLIF(SUM(s.quantitySold), 0), 1)
+            )
+            FROM ProductDailyStats s
+            JOIN Product p ON p.id = s.productId
+            WHERE (:startDate IS NULL OR s.statDate >= :startDate)
+              AND (:endDate IS NULL OR s.statDate <= :endDate)
+            GROUP BY s.productId, p.name
+            HAVING SUM(s.quantityReturned) > 0
+            ORDER BY CAST(SUM(s.quantityReturned) AS double) / COALESCE(NULLIF(SUM(s.quantitySold), 0), 1) DESC, s.productId
+            """)
+    List<ProductReturnRateDTO> findReturnRates(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Limit limit
+    );
+
+    /**
+     * Units sold per product in the range, by product name then id, after the given cursor.
+     */
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.ProductOrderTotalDTO(
+                p.id, p.name, p.price, SUM(s.quantitySold), p.imageName
+            )
+            FROM ProductDailyStats s
+            JOIN Product p ON p.id = s.productId
+            WHERE (:brandId IS NULL OR p.brand.id = :brandId)
+              AND (:categoryId IS NULL OR p.category.id = :categoryId)
+              AND (:search IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')))
+              AND (:startDate IS NULL OR s.statDate >= :startDate)
+              AND (:endDate IS NULL OR s.statDate <= :endDate)
+              AND (:cursorName IS NULL OR p.name > :cursorName
+                   OR (p.name = :cursorName AND p.id > :cursorId))
+            GROUP BY p.id, p.name, p.price, p.imageName
+            HAVING SUM(s.quantitySold) > 0
+            ORDER BY p.name, p.id
+            """)
+    List<ProductOrderTotalDTO> findProductTotalsAfter(
+            @Param("brandId") Long brandId,
+            @Param("categoryId") Long categoryId,
+            @Param("search") String search,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("cursorName") String cursorName,
+            @Param("cursorId") Long cursorId,
+            Limit limit
+    );
+
+    @Query("""
+            SELECT COUNT(p)
+            FROM Product p
+            WHERE (:brandId IS NULL OR p.brand.id = :brandId)
+              AND (:categoryId IS NULL OR p.category.id = :categoryId)
+              AND (:search IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')))
+            """)
+    long countCatalogProducts(
+            @Param("brandId") Long brandId,
+            @Param("categoryId") Long categoryId,
+            @Param("search") String search
+    );
+
+    @Modifying
+    @Query("DELETE FROM ProductDailyStats s WHERE s.statDate >= :startDate AND s.statDate <= :endDate")
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_stats_daily (stat_date, product_id, quantity_sold, quantity_returned)
+            SELECT DATE(o.order_date), oi.product_id, SUM(oi.quantity), 0
+            FROM orders o
+            JOIN order_item oi ON oi.order_id = o.id
+            WHERE o.order_date >= :startDateTime AND o.order_date < :endDateTime
+            GROUP BY DATE(o.order_date), oi.product_id
+            """, nativeQuery = true)
+    int backfillSold(@Param("startDateTime") LocalDateTime startDateTime,
+                     @Param("endDateTime") LocalDateTime endDateTime);
+
+    // Runs after backfillSold, merging returns into the days that already have sales
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_stats_daily (stat_date, product_id, quantity_sold, quantity_returned)
+            SELECT DATE(r.returned_at), r.product_id, 0, SUM(r.quantity_returned)
+            FROM return_record r
+            WHERE r.returned_at >= :startDateTime AND r.returned_at < :endDateTime
+            GROUP BY DATE(r.returned_at), r.product_id
+            ON DUPLICATE KEY UPDATE quantity_returned = quantity_returned + VALUES(quantity_returned)
+            """, nativeQuery = true)
+    int backfillReturned(@Param("startDateTime") LocalDateTime startDateTime,
+                         @Param("endDateTime") LocalDateTime endDateTime);
+}
@@ -1,14 +1,16 @@
 package com.eternalcoders.pointedge.repository;
 
-import com.eternalcoders.pointedge.dto.CategoryDistributionDTO;
 import com.eternalcoders.pointedge.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,10 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity WHERE p.id = :productId AND p.stockQuantity >= :quantity")
     int reduceStock(@Param("productId") Long productId, @Param("quantity") long quantity);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT p FROM Product p " +
             "WHERE (:brandId IS NULL OR p.brand.id = :brandId) " +
             "AND (:categoryId IS NULL OR p.category.id = :categoryId) " +
@@ -32,13 +38,23 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Optional<Product> findByBarcode(String barcode);
 
+    // [productId, categoryId] pairs; products without a category are left out
+    @Query("SELECT p.id, p.category.id FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findCategoryIdsByIds(@Param("ids") Collection<Long> ids);
+
+    // [productId, brandId, categoryId]; products without a brand or a category are left out
+    @Query("SELECT p.id, p.brand.id, p.category.id FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findBrandCategoryIdsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // [productId, categoryId, categoryName, brandId, brandName, hidden, stockQuantity, minimumQuantity]
     @Query("""
-                SELECT new com.eternalcoders.pointedge.dto.CategoryDistributionDTO(
-                    p.category.name, COUNT(p.id)
-                )
+                SELECT p.id, c.id, c.name, b.id, b.name, p.hidden, p.stockQuantity, p.minimumQuantity
                 FROM Product p
-                WHERE p.hidden = false
-                GROUP BY p.category.name
+                JOIN p.category c
+                JOIN p.brand b
             """)
-    List<CategoryDistributionDTO> getProductCategoryDistribution();
+    List<Object[]> findCatalogFacts();
 }
@@ -0,0 +1,33 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.entity.ProductSalesSeries;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductSalesSeriesRepository extends JpaRepository<ProductSalesSeries, Long> {
+    List<ProductSalesSeries> findByProductIdInAndSeriesYearBetween(Collection<Long> productIds, int startYear, int endYear);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductSalesSeries s WHERE s.productId = :productId AND s.seriesYear = :seriesYear")
+    Optional<ProductSalesSeries> findForUpdate(@Param("productId") Long productId, @Param("seriesYear") int seriesYear);
+
+    // Creates the row with the given series unless a concurrent writer already has
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO product_sales_series (product_id, series_year, data)
+            VALUES (:productId, :seriesYear, :data)
+            """, nativeQuery = true)
+    void insertIfAbsent(@Param("productId") Long productId, @Param("seriesYear") int seriesYear, @Param("data") byte[] data);
+
+    @Modifying
+    @Query("DELETE FROM ProductSalesSeries s WHERE s.seriesYear BETWEEN :startYear AND :endYear")
+    int deleteYears(@Param("startYear") int startYear, @Param("endYear") int endYear);
+}
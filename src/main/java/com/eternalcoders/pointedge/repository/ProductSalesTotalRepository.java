@@ -0,0 +1,48 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.entity.ProductSalesTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProductSalesTotalRepository extends JpaRepository<ProductSalesTotal, Long> {
+    // Negative amounts take refunds off
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_sales_totals (product_id, quantity_sold, revenue)
+            VALUES (:productId, :quantity, :revenue)
+            ON DUPLICATE KEY UPDATE
+                quantity_sold = quantity_sold + VALUES(quantity_sold),
+                revenue = revenue + VALUES(revenue)
+            """, nativeQuery = true)
+    void addToProduct(@Param("productId") Long productId, @Param("quantity") long quantity, @Param("revenue") double revenue);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_sales_totals", nativeQuery = true)
+    int deleteAllTotals();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_sales_totals (product_id, quantity_sold, revenue)
+            SELECT oi.product_id, SUM(oi.quantity), SUM(oi.price_per_unit * oi.quantity)
+            FROM order_item oi
+            GROUP BY oi.product_id
+            """, nativeQuery = true)
+    int backfillSales();
+
+    // Takes off what processApprovedRefund refunded: the invoice price of each cash or card return
+    @Modifying
+    @Query(value = """
+            INSERT INTO product_sales_totals (product_id, quantity_sold, revenue)
+            SELECT r.product_id, -SUM(r.quantity_returned), -SUM(r.quantity_returned * COALESCE(ii.price, 0))
+            FROM return_record r
+            JOIN invoice_item ii ON ii.id = r.invoice_item_id
+            WHERE r.refund_method IN ('Cash', 'Card')
+            GROUP BY r.product_id
+            ON DUPLICATE KEY UPDATE
+                quantity_sold = quantity_sold + VALUES(quantity_sold),
+                revenue = revenue + VALUES(revenue)
+            """, nativeQuery = true)
+    int backfillRefunds();
+}
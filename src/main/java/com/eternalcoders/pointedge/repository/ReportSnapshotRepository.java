@@ -0,0 +1,33 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.dto.ReportSnapshotDTO;
+import com.eternalcoders.pointedge.entity.ReportSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ReportSnapshotRepository extends JpaRepository<ReportSnapshot, Long> {
+    Optional<ReportSnapshot> findTopByReportNameOrderByVersionDesc(String reportName);
+
+    Optional<ReportSnapshot> findByReportNameAndVersion(String reportName, int version);
+
+    @Query("SELECT MAX(s.version) FROM ReportSnapshot s WHERE s.reportName = :reportName")
+    Integer findLatestVersion(@Param("reportName") String reportName);
+
+    // The latest version of every report, without the data
+    @Query("""
+            SELECT new com.eternalcoders.pointedge.dto.ReportSnapshotDTO(s.reportName, s.version, s.asOf, s.periodStart, s.periodEnd)
+            FROM ReportSnapshot s
+            WHERE s.version = (SELECT MAX(v.version) FROM ReportSnapshot v WHERE v.reportName = s.reportName)
+            ORDER BY s.reportName
+            """)
+    List<ReportSnapshotDTO> findLatestSummaries();
+
+    @Modifying
+    @Query("DELETE FROM ReportSnapshot s WHERE s.reportName = :reportName AND s.version <= :version")
+    int deleteUpToVersion(@Param("reportName") String reportName, @Param("version") int version);
+}
@@ -0,0 +1,45 @@
+package com.eternalcoders.pointedge.seeder;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Order-side entities take their ids from the pooled "id_generator" table instead of
+ * AUTO_INCREMENT columns. On databases that already hold rows from the identity days, the
+ * generator rows are started past the current maximum id so new ids never collide.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class IdGeneratorSeeder implements CommandLineRunner {
+    // Must match the allocationSize of the @TableGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    // Generator name -> table whose ids it hands out
+    private static final Map<String, String> GENERATED_TABLES = Map.of(
+            "orders", "orders",
+            "order_item", "order_item",
+            "invoice_item", "invoice_item",
+            "order_details", "order_details"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        GENERATED_TABLES.forEach((generatorName, tableName) -> jdbcTemplate.update(
+                "INSERT INTO id_generator (gen_name, gen_value) "
+                        + "SELECT ?, next_id FROM (SELECT COALESCE(MAX(id), 0) + ? AS next_id FROM " + tableName + ") m "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM id_generator WHERE gen_name = ?)",
+                generatorName, ALLOCATION_SIZE + 1, generatorName
+        ));
+    }
+}
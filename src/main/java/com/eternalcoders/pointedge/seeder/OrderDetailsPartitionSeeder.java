@@ -0,0 +1,31 @@
+package com.eternalcoders.pointedge.seeder;
+
+import com.eternalcoders.pointedge.service.OrderDetailsPartitionService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings order_details onto monthly partitions on first start, after Hibernate has created or
+ * updated the table, and makes sure the coming months' partitions exist. The conversion drops
+ * the table's foreign keys and rebuilds it on MySQL, so it only runs when
+ * pointedge.order-details.partition-on-startup is set to true.
+ */
+@Component
+@ConditionalOnProperty(prefix = "pointedge.order-details", name = "partition-on-startup", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class OrderDetailsPartitionSeeder implements CommandLineRunner {
+    private final OrderDetailsPartitionService orderDetailsPartitionService;
+
+    public OrderDetailsPartitionSeeder(OrderDetailsPartitionService orderDetailsPartitionService) {
+        this.orderDetailsPartitionService = orderDetailsPartitionService;
+    }
+
+    @Override
+    public void run(String... args) {
+        orderDetailsPartitionService.partitionIfNeeded();
+        orderDetailsPartitionService.maintainPartitions();
+    }
+}
@@ -1,44 +1,96 @@
 package com.eternalcoders.pointedge.service;
 
 import com.eternalcoders.pointedge.dto.*;
-import com.eternalcoders.pointedge.repository.OrderItemRepository;
-import com.eternalcoders.pointedge.repository.ProductRepository;
-import com.eternalcoders.pointedge.repository.ReturnRecordRepository;
+import com.eternalcoders.pointedge.enums.SalesBucket;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
+@Transactional(readOnly = true)
 public class AnalyticsService {
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private ProductDailyStatsService productDailyStatsService;
 
     @Autowired
-    private ReturnRecordRepository returnRecordRepository;
+    private ProductSalesSeriesService productSalesSeriesService;
 
     @Autowired
-    private ProductRepository productRepository;
+    private BasketAffinityService basketAffinityService;
+
+    @Autowired
+    private CatalogStatsService catalogStatsService;
+
+    @Autowired
+    private OrderStatsRollupService orderStatsRollupService;
+
+    @Autowired
+    private ProductSalesLeaderboardService productSalesLeaderboardService;
 
     public List<CategoryDistributionDTO> getProductCategoryDistribution() {
-        return productRepository.getProductCategoryDistribution();
+        return catalogStatsService.getCategoryDistribution();
+    }
+
+    public CatalogStatsDTO getCatalogStats() {
+        return catalogStatsService.getStats();
+    }
+
+    public List<TopSellingProductDTO> getTopSellingProducts(Integer limit) {
+        return productSalesLeaderboardService.getTopByQuantity(limit);
+    }
+
+    public List<DailySalesDTO> getSalesOverTime(SalesBucket bucket, LocalDate startDate, LocalDate endDate) {
+        return orderStatsRollupService.getSalesSeries(bucket, startDate, endDate);
+    }
+
+    public void forEachSalesBucket(SalesBucket bucket, LocalDate startDate, LocalDate endDate, Consumer<DailySalesDTO> sink) {
+        orderStatsRollupService.forEachSalesBucket(bucket, startDate, endDate, sink);
+    }
+
+    public List<ProductRevenueDTO> getRevenueByProduct(Integer limit) {
+        return productSalesLeaderboardService.getTopByRevenue(limit);
+    }
+
+    @Transactional
+    public Map<String, Object> rebuildProductSalesTotals() {
+        return productSalesLeaderboardService.rebuild();
+    }
+
+    public List<ProductReturnRateDTO> getReturnRatesByProduct(LocalDate startDate, LocalDate endDate, Integer top) {
+        return productDailyStatsService.getReturnRates(startDate, endDate, top);
+    }
+
+    @Transactional
+    public Map<String, Object> rebuildProductStats(LocalDate startDate, LocalDate endDate) {
+        return productDailyStatsService.rebuild(startDate, endDate);
+    }
+
+    public List<ProductSalesPointDTO> getProductSalesSeries(Long productId, LocalDate startDate, LocalDate endDate) {
+        return productSalesSeriesService.getProductSeries(productId, startDate, endDate);
     }
 
-    public List<TopSellingProductDTO> getTopSellingProducts() {
-        return orderItemRepository.findTopSellingProducts();
+    public List<ProductSalesPointDTO> getCategorySalesSeries(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        return productSalesSeriesService.getCategorySeries(categoryId, startDate, endDate);
     }
 
-    public List<DailySalesDTO> getSalesOverTime() {
-        return orderItemRepository.getDailySales();
+    @Transactional
+    public Map<String, Object> rebuildProductSalesSeries(LocalDate startDate, LocalDate endDate) {
+        return productSalesSeriesService.rebuild(startDate, endDate);
     }
 
-    public List<ProductRevenueDTO> getRevenueByProduct() {
-        return orderItemRepository.getRevenueByProduct();
+    public List<BoughtWithDTO> getBoughtWith(Long productId, int limit) {
+        return basketAffinityService.getBoughtWith(productId, limit);
     }
 
-    public List<ProductReturnRateDTO> getReturnRatesByProduct() {
-        return returnRecordRepository.getReturnRatesByProduct();
+    @Transactional
+    public Map<String, Object> mineBasketAffinity(boolean rebuild) {
+        return rebuild ? basketAffinityService.rebuild() : basketAffinityService.mine();
     }
 
 }
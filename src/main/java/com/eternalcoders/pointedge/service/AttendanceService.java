@@ -5,6 +5,8 @@ import com.eternalcoders.pointedge.entity.Employee;
 import com.eternalcoders.pointedge.exception.ResourceNotFoundException;
 import com.eternalcoders.pointedge.repository.AttendanceRepository;
 import com.eternalcoders.pointedge.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +16,8 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -22,6 +26,9 @@ public class AttendanceService {
     private final AttendanceRepository attendanceRepository;
     private final EmployeeRepository employeeRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     public AttendanceService(AttendanceRepository attendanceRepository, EmployeeRepository employeeRepository) {
         this.attendanceRepository = attendanceRepository;
@@ -32,6 +39,31 @@ public class AttendanceService {
         return attendanceRepository.findAll();
     }
 
+    /**
+     * Hands every attendance, with its employee, to the sink as the rows are read. Each record is
+     * detached once the sink is done with it, so only the employees stay in the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void forEachAttendance(Consumer<Attendance> sink) {
+        try (Stream<Attendance> attendances = attendanceRepository.streamAll()) {
+            attendances.forEach(attendance -> {
+                sink.accept(attendance);
+                entityManager.detach(attendance);
+            });
+        }
+    }
+
+    // The employee's attendances, newest first, handed to the sink the same way
+    @Transactional(readOnly = true)
+    public void forEachAttendanceOf(Employee employee, Consumer<Attendance> sink) {
+        try (Stream<Attendance> attendances = attendanceRepository.streamByEmployeeNewestFirst(employee)) {
+            attendances.forEach(attendance -> {
+                sink.accept(attendance);
+                entityManager.detach(attendance);
+            });
+        }
+    }
+
     public Optional<Attendance> getAttendanceById(Long id) {
         return attendanceRepository.findById(id);
     }
@@ -0,0 +1,197 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.dto.BoughtWithDTO;
+import com.eternalcoders.pointedge.entity.BasketAffinityState;
+import com.eternalcoders.pointedge.entity.ProductAffinity;
+import com.eternalcoders.pointedge.repository.BasketAffinityStateRepository;
+import com.eternalcoders.pointedge.repository.OrderItemRepository;
+import com.eternalcoders.pointedge.repository.OrderRepository;
+import com.eternalcoders.pointedge.repository.ProductAffinityRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Frequently-bought-together lists, mined incrementally from order_item. Each run reads the orders
+ * placed since the last one, a day at a time, and counts every pair of products in a basket in a
+ * count-min sketch. Each product keeps the CANDIDATES partners with the highest estimated counts
+ * (a heavy-hitters list fed by the sketch estimates), so memory stays bounded however many
+ * distinct pairs occur. The lists are stored in product_affinity and read from there by product.
+ */
+@Service
+public class BasketAffinityService {
+    // Partners kept per product, and the most a caller may ask for
+    private static final int CANDIDATES = 20;
+    // Products of a basket beyond this are not paired, so one huge order costs at most ~1,200 pairs
+    private static final int MAX_BASKET_PRODUCTS = 50;
+    // Orders are read once they are this old, so transactions still open at the cut are not missed
+    private static final int SETTLE_MINUTES = 10;
+
+    private final BasketAffinityStateRepository stateRepository;
+    private final ProductAffinityRepository affinityRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    public BasketAffinityService(BasketAffinityStateRepository stateRepository,
+                                 ProductAffinityRepository affinityRepository,
+                                 OrderRepository orderRepository,
+                                 OrderItemRepository orderItemRepository) {
+        this.stateRepository = stateRepository;
+        this.affinityRepository = affinityRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    /**
+     * The products most often bought together with the given one, most frequent first.
+     */
+    @Transactional(readOnly = true)
+    public List<BoughtWithDTO> getBoughtWith(Long productId, int limit) {
+        List<BoughtWithDTO> result = new ArrayList<>();
+        for (Object[] row : affinityRepository.findBoughtWith(productId, Limit.of(Math.min(limit, CANDIDATES)))) {
+            result.add(new BoughtWithDTO((Long) row[0], (String) row[1], ((Number) row[2]).longValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the orders placed since the last run to the pair counts and rewrites the lists of
+     * every product that was in one of them.
+     */
+    @Scheduled(cron = "0 20 * * * *")
+    @Transactional
+    public Map<String, Object> mine() {
+        BasketAffinityState state = stateRepository.findForUpdate(BasketAffinityState.ID).orElseGet(() -> {
+            BasketAffinityState created = new BasketAffinityState();
+            created.setId(BasketAffinityState.ID);
+            return created;
+        });
+        LocalDateTime from = state.getProcessedUntil() != null ? state.getProcessedUntil() : orderRepository.findFirstOrderDate();
+        LocalDateTime until = LocalDateTime.now().minusMinutes(SETTLE_MINUTES);
+
+        Map<String, Object> response = new HashMap<>();
+        if (from == null || !from.isBefore(until)) {
+            response.put("ordersRead", 0);
+            response.put("productsUpdated", 0);
+            return response;
+        }
+
+        CountMinSketch pairs = state.getPairSketch() != null ? CountMinSketch.fromBytes(state.getPairSketch()) : new CountMinSketch();
+        Map<Long, Map<Long, Long>> lists = new HashMap<>();
+        Set<Long> changed = new HashSet<>();
+        int orders = 0;
+
+        for (LocalDateTime dayStart = from; dayStart.isBefore(until); dayStart = dayStart.plusDays(1)) {
+            LocalDateTime dayEnd = dayStart.plusDays(1).isBefore(until) ? dayStart.plusDays(1) : until;
+            Long currentOrder = null;
+            Set<Long> basket = new TreeSet<>();
+            for (Object[] row : orderItemRepository.findOrderProducts(dayStart, dayEnd)) {
+                Long orderId = (Long) row[0];
+                if (!orderId.equals(currentOrder)) {
+                    orders += countBasket(basket, pairs, lists, changed) ? 1 : 0;
+                    basket.clear();
+                    currentOrder = orderId;
+                }
+                basket.add((Long) row[1]);
+            }
+            orders += countBasket(basket, pairs, lists, changed) ? 1 : 0;
+        }
+
+        if (!changed.isEmpty()) {
+            affinityRepository.deleteByProductIds(changed);
+            List<ProductAffinity> rows = new ArrayList<>();
+            for (Long productId : changed) {
+                lists.get(productId).forEach((relatedProductId, count) -> {
+                    ProductAffinity row = new ProductAffinity();
+                    row.setProductId(productId);
+                    row.setRelatedProductId(relatedProductId);
+                    row.setOrderCount(count);
+                    rows.add(row);
+                });
+            }
+            affinityRepository.saveAll(rows);
+        }
+
+        state.setProcessedUntil(until);
+        state.setPairSketch(pairs.toBytes());
+        stateRepository.save(state);
+
+        response.put("processedUntil", until);
+        response.put("ordersRead", orders);
+        response.put("productsUpdated", changed.size());
+        return response;
+    }
+
+    /**
+     * Forgets all pair counts and lists and mines the whole order history again.
+     */
+    @Transactional
+    public Map<String, Object> rebuild() {
+        affinityRepository.deleteAllLists();
+        stateRepository.deleteById(BasketAffinityState.ID);
+        stateRepository.flush();
+        return mine();
+    }
+
+    private boolean countBasket(Set<Long> basket, CountMinSketch pairs, Map<Long, Map<Long, Long>> lists, Set<Long> changed) {
+        if (basket.size() < 2) {
+            return !basket.isEmpty();
+        }
+        Long[] products = basket.stream().limit(MAX_BASKET_PRODUCTS).toArray(Long[]::new);
+        for (int i = 0; i < products.length; i++) {
+            for (int j = i + 1; j < products.length; j++) {
+                long count = pairs.increment(pairKey(products[i], products[j]));
+                offer(list(lists, changed, products[i]), products[j], count);
+                offer(list(lists, changed, products[j]), products[i], count);
+            }
+        }
+        return true;
+    }
+
+    // A product's current list, read from product_affinity the first time the run touches it
+    private Map<Long, Long> list(Map<Long, Map<Long, Long>> lists, Set<Long> changed, Long productId) {
+        Map<Long, Long> list = lists.get(productId);
+        if (list == null) {
+            list = new HashMap<>();
+            for (Object[] row : affinityRepository.findBoughtWith(productId, Limit.of(CANDIDATES))) {
+                list.put((Long) row[0], ((Number) row[2]).longValue());
+            }
+            lists.put(productId, list);
+            changed.add(productId);
+        }
+        return list;
+    }
+
+    // Keeps the partner if it is already listed, there is room, or it beats the weakest entry
+    private void offer(Map<Long, Long> list, Long partner, long count) {
+        if (list.containsKey(partner) || list.size() < CANDIDATES) {
+            list.put(partner, count);
+            return;
+        }
+        Map.Entry<Long, Long> weakest = null;
+        for (Map.Entry<Long, Long> entry : list.entrySet()) {
+            if (weakest == null || entry.getValue() < weakest.getValue()) {
+                weakest = entry;
+            }
+        }
+        if (count > weakest.getValue()) {
+            list.remove(weakest.getKey());
+            list.put(partner, count);
+        }
+    }
+
+    // Smaller id first, so both orders of a pair land on the same counters
+    private static long pairKey(long first, long second) {
+        return (Math.min(first, second) << 32) ^ Math.max(first, second);
+    }
+}
@@ -0,0 +1,144 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.dto.BrandDistributionDTO;
+import com.eternalcoders.pointedge.dto.CatalogStatsDTO;
+import com.eternalcoders.pointedge.dto.CategoryDistributionDTO;
+import com.eternalcoders.pointedge.entity.Brand;
+import com.eternalcoders.pointedge.entity.Category;
+import com.eternalcoders.pointedge.entity.Product;
+import com.eternalcoders.pointedge.repository.BrandRepository;
+import com.eternalcoders.pointedge.repository.CategoryRepository;
+import com.eternalcoders.pointedge.repository.ProductRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product counts per category and brand, hidden and visible, and below their minimum stock,
+ * served from memory. Products added or edited through ProductService update the counts as
+ * they are saved. Stock moves with every sale and refund, so the whole catalog is also reread
+ * every five minutes; the low-stock count can trail by that much.
+ */
+@Service
+public class CatalogStatsService {
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+
+    // What the counts hold for one product
+    private record Facts(long categoryId, long brandId, boolean hidden, boolean lowStock) {
+    }
+
+    // Guarded by this
+    private Map<Long, Facts> products;
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<Long, String> brandNames = new HashMap<>();
+
+    private volatile CatalogStatsDTO stats;
+
+    public CatalogStatsService(ProductRepository productRepository,
+                               CategoryRepository categoryRepository,
+                               BrandRepository brandRepository) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.brandRepository = brandRepository;
+    }
+
+    public CatalogStatsDTO getStats() {
+        CatalogStatsDTO current = stats;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (products == null) {
+                load();
+            }
+            return stats;
+        }
+    }
+
+    // Visible products per category, as /api/analytics/category-distribution has always returned
+    public List<CategoryDistributionDTO> getCategoryDistribution() {
+        return getStats().getCategories();
+    }
+
+    @Scheduled(cron = "0 */5 * * * *")
+    public synchronized void reload() {
+        load();
+    }
+
+    /**
+     * Counts a product that was just added or edited under its current category, brand,
+     * visibility and stock level.
+     */
+    public synchronized void productSaved(Product product) {
+        if (products == null) {
+            // Nothing loaded yet; the first read picks the product up
+            return;
+        }
+        long categoryId = product.getCategory().getId();
+        long brandId = product.getBrand().getId();
+        if (!categoryNames.containsKey(categoryId)) {
+            categoryNames.put(categoryId, categoryRepository.findById(categoryId).map(Category::getName).orElse(null));
+        }
+        if (!brandNames.containsKey(brandId)) {
+            brandNames.put(brandId, brandRepository.findById(brandId).map(Brand::getName).orElse(null));
+        }
+        products.put(product.getId(), new Facts(categoryId, brandId, product.isHidden(),
+                product.getStockQuantity() <= product.getMinimumQuantity()));
+        publish();
+    }
+
+    private void load() {
+        Map<Long, Facts> loaded = new HashMap<>();
+        categoryNames.clear();
+        brandNames.clear();
+        for (Object[] row : productRepository.findCatalogFacts()) {
+            long categoryId = (Long) row[1];
+            long brandId = (Long) row[3];
+            categoryNames.put(categoryId, (String) row[2]);
+            brandNames.put(brandId, (String) row[4]);
+            loaded.put((Long) row[0], new Facts(categoryId, brandId, (Boolean) row[5],
+                    ((Number) row[6]).longValue() <= ((Number) row[7]).longValue()));
+        }
+        products = loaded;
+        publish();
+    }
+
+    // Recounts from the per-product facts; runs only when the catalog changes, never on a read
+    private void publish() {
+        long hidden = 0;
+        long lowStock = 0;
+        Map<Long, Long> perCategory = new HashMap<>();
+        Map<Long, Long> perBrand = new HashMap<>();
+        for (Facts facts : products.values()) {
+            if (facts.hidden()) {
+                hidden++;
+                continue;
+            }
+            if (facts.lowStock()) {
+                lowStock++;
+            }
+            perCategory.merge(facts.categoryId(), 1L, Long::sum);
+            perBrand.merge(facts.brandId(), 1L, Long::sum);
+        }
+
+        // Grouped by name, like the GROUP BY it replaces
+        Map<String, Long> categoryCounts = new HashMap<>();
+        perCategory.forEach((id, count) -> categoryCounts.merge(categoryNames.get(id), count, Long::sum));
+        Map<String, Long> brandCounts = new HashMap<>();
+        perBrand.forEach((id, count) -> brandCounts.merge(brandNames.get(id), count, Long::sum));
+
+        List<CategoryDistributionDTO> categories = new ArrayList<>();
+        categoryCounts.forEach((name, count) -> categories.add(new CategoryDistributionDTO(name, count)));
+        List<BrandDistributionDTO> brands = new ArrayList<>();
+        brandCounts.forEach((name, count) -> brands.add(new BrandDistributionDTO(name, count)));
+
+        stats = new CatalogStatsDTO(products.size(), products.size() - hidden, hidden, lowStock,
+                List.copyOf(categories), List.copyOf(brands));
+    }
+}
@@ -0,0 +1,110 @@
+package com.eternalcoders.pointedge.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Count-min sketch over long keys: four rows of 2^16 counters, about 1 MB. A key's estimate never
+ * undercounts and overcounts by at most e/2^16 of everything added, with probability 1 - e^-4.
+ * Updates are conservative (only the counters at the current minimum are raised), which keeps the
+ * overcount of rarely seen keys well below that bound.
+ */
+final class CountMinSketch {
+    private static final int DEPTH = 4;
+    private static final int WIDTH_BITS = 16;
+    private static final int WIDTH = 1 << WIDTH_BITS;
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int[] counters;
+
+    CountMinSketch() {
+        this.counters = new int[DEPTH * WIDTH];
+    }
+
+    private CountMinSketch(int[] counters) {
+        this.counters = counters;
+    }
+
+    // Adds one occurrence of the key and returns its new estimate
+    int increment(long key) {
+        int[] cells = new int[DEPTH];
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            cells[row] = row * WIDTH + (int) (mix(key ^ SEEDS[row]) >>> (64 - WIDTH_BITS));
+            estimate = Math.min(estimate, counters[cells[row]]);
+        }
+        if (estimate == Integer.MAX_VALUE) {
+            return estimate;
+        }
+        estimate++;
+        for (int cell : cells) {
+            if (counters[cell] < estimate) {
+                counters[cell] = estimate;
+            }
+        }
+        return estimate;
+    }
+
+    int estimate(long key) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[row * WIDTH + (int) (mix(key ^ SEEDS[row]) >>> (64 - WIDTH_BITS))]);
+        }
+        return estimate;
+    }
+
+    // Counters deflated; most are zero or small until the sketch has seen a lot of pairs
+    byte[] toBytes() {
+        ByteBuffer raw = ByteBuffer.allocate(counters.length * Integer.BYTES);
+        raw.asIntBuffer().put(counters);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(raw.array());
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    static CountMinSketch fromBytes(byte[] bytes) {
+        byte[] raw = new byte[DEPTH * WIDTH * Integer.BYTES];
+        Inflater inflater = new Inflater();
+        inflater.setInput(bytes);
+        try {
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, raw.length - read);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // truncated stream
+                    break;
+                }
+                read += inflated;
+            }
+            if (read != raw.length) {
+                throw new IllegalArgumentException("Sketch has " + read + " bytes of counters, expected " + raw.length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Sketch is not a deflated counter array", e);
+        } finally {
+            inflater.end();
+        }
+        int[] counters = new int[DEPTH * WIDTH];
+        ByteBuffer.wrap(raw).asIntBuffer().get(counters);
+        return new CountMinSketch(counters);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
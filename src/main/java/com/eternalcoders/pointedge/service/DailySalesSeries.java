@@ -0,0 +1,168 @@
+package com.eternalcoders.pointedge.service;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Arrays;
+
+/**
+ * Daily quantity and revenue of one product over one calendar year, for product_sales_series.
+ * Only days with sales are kept, as three parallel columns: the day of the year, the units sold
+ * and the revenue in cents. Encoded, each column is stored as varint deltas from the previous
+ * entry (zig-zag for quantity and revenue, which can go down), so a year of steady daily sales
+ * takes a few bytes per day.
+ */
+final class DailySalesSeries {
+    private final int year;
+    private int size;
+    private int[] days;
+    private long[] quantities;
+    private long[] cents;
+
+    DailySalesSeries(int year) {
+        this(year, 0, new int[8], new long[8], new long[8]);
+    }
+
+    private DailySalesSeries(int year, int size, int[] days, long[] quantities, long[] cents) {
+        this.year = year;
+        this.size = size;
+        this.days = days;
+        this.quantities = quantities;
+        this.cents = cents;
+    }
+
+    int size() {
+        return size;
+    }
+
+    LocalDate dateAt(int index) {
+        return LocalDate.ofYearDay(year, days[index] + 1);
+    }
+
+    long quantityAt(int index) {
+        return quantities[index];
+    }
+
+    double revenueAt(int index) {
+        return cents[index] / 100.0;
+    }
+
+    void add(LocalDate date, long quantity, double revenue) {
+        if (date.getYear() != year) {
+            throw new IllegalArgumentException(date + " is not in " + year);
+        }
+        int day = date.getDayOfYear() - 1;
+        int index = Arrays.binarySearch(days, 0, size, day);
+        if (index < 0) {
+            index = -index - 1;
+            if (size == days.length) {
+                int capacity = Math.min(size * 2, 366);
+                days = Arrays.copyOf(days, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+            }
+            System.arraycopy(days, index, days, index + 1, size - index);
+            System.arraycopy(quantities, index, quantities, index + 1, size - index);
+            System.arraycopy(cents, index, cents, index + 1, size - index);
+            days[index] = day;
+            quantities[index] = 0;
+            cents[index] = 0;
+            size++;
+        }
+        quantities[index] += quantity;
+        cents[index] += Math.round(revenue * 100);
+    }
+
+    byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + size * 4);
+        writeVarint(out, size);
+        long previous = -1;
+        for (int i = 0; i < size; i++) {
+            writeVarint(out, days[i] - previous);
+            previous = days[i];
+        }
+        writeDeltas(out, quantities, size);
+        writeDeltas(out, cents, size);
+        return out.toByteArray();
+    }
+
+    static DailySalesSeries fromBytes(int year, byte[] bytes) {
+        Reader in = new Reader(bytes);
+        int size = (int) in.readVarint();
+        if (size > 366) {
+            throw new IllegalArgumentException("Series has " + size + " days");
+        }
+        int capacity = Math.max(size, 8);
+        int[] days = new int[capacity];
+        int daysInYear = Year.of(year).length();
+        long previous = -1;
+        for (int i = 0; i < size; i++) {
+            long delta = in.readVarint();
+            // days are strictly increasing and inside the year
+            if (delta < 1 || previous + delta >= daysInYear) {
+                throw new IllegalArgumentException("Series has an invalid day after day " + previous);
+            }
+            previous += delta;
+            days[i] = (int) previous;
+        }
+        long[] quantities = readDeltas(in, size, capacity);
+        long[] cents = readDeltas(in, size, capacity);
+        if (in.position != bytes.length) {
+            throw new IllegalArgumentException("Series has " + (bytes.length - in.position) + " trailing bytes");
+        }
+        return new DailySalesSeries(year, size, days, quantities, cents);
+    }
+
+    private static void writeDeltas(ByteArrayOutputStream out, long[] values, int size) {
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            long delta = values[i] - previous;
+            writeVarint(out, (delta << 1) ^ (delta >> 63));
+            previous = values[i];
+        }
+    }
+
+    private static long[] readDeltas(Reader in, int size, int capacity) {
+        long[] values = new long[capacity];
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            long zigzag = in.readVarint();
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    // LEB128: seven bits per byte, low bits first, high bit set on all but the last byte
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IllegalArgumentException("Series ends inside a varint");
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint longer than 64 bits");
+        }
+    }
+}
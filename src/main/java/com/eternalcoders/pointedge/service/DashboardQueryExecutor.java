@@ -0,0 +1,160 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.exception.QueryTimeoutException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent read queries behind a dashboard call in parallel on virtual threads.
+ * <p>
+ * All callers share a fixed number of slots, so dashboards never hold more than that many pooled
+ * connections however many requests arrive at once. Each query may wait up to the timeout for a
+ * slot and must then finish within the timeout. Queries must not call back into this executor,
+ * since a query waiting for a slot its own caller holds would only end by timing out.
+ * Each query runs in its own read-only transaction, so it reads from the analytics replica when
+ * one is configured.
+ */
+@Component
+public class DashboardQueryExecutor {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore connectionSlots;
+    private final Duration queryTimeout;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public DashboardQueryExecutor(
+            PlatformTransactionManager transactionManager,
+            @Value("${pointedge.dashboard.max-parallel-queries:4}") int maxParallelQueries,
+            @Value("${pointedge.dashboard.query-timeout-seconds:10}") long queryTimeoutSeconds
+    ) {
+        this.connectionSlots = new Semaphore(maxParallelQueries, true);
+        this.queryTimeout = Duration.ofSeconds(queryTimeoutSeconds);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // orTimeout only fails the future; the transaction timeout becomes each statement's query
+        // timeout, so the database cancels the query and its slot and connection are freed
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, queryTimeout.toSeconds()));
+    }
+
+    /**
+     * Runs every query and returns the results under the same keys, in the same order as given.
+     * If any query fails or times out, the others are cancelled and its exception is rethrown.
+     */
+    public <K, V> Map<K, V> runAll(Map<K, Callable<V>> queries) {
+        Batch batch = batch();
+        Map<K, Supplier<V>> results = new LinkedHashMap<>();
+        queries.forEach((key, query) -> results.put(key, batch.add(query)));
+        batch.join();
+
+        Map<K, V> values = new LinkedHashMap<>();
+        results.forEach((key, result) -> values.put(key, result.get()));
+        return values;
+    }
+
+    /**
+     * Starts a group of queries whose results have different types.
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Queries run together as runAll runs them. add() starts a query and returns a handle to its
+     * result, which may be read once join() has returned.
+     */
+    public final class Batch {
+        private final List<CompletableFuture<?>> results = new ArrayList<>();
+        private final List<Future<?>> tasks = new ArrayList<>();
+
+        private Batch() {
+        }
+
+        public <V> Supplier<V> add(Callable<V> query) {
+            CompletableFuture<V> result = new CompletableFuture<>();
+            results.add(result);
+            tasks.add(executor.submit(() -> run(query, result)));
+            return result::join;
+        }
+
+        /**
+         * Waits for every query. If any fails or times out, the others are cancelled and its
+         * exception is rethrown.
+         */
+        public void join() {
+            try {
+                results.forEach(CompletableFuture::join);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    throw new QueryTimeoutException("Analytics query did not finish within " + queryTimeout.toSeconds() + " seconds");
+                }
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Analytics query failed", e.getCause());
+            } finally {
+                tasks.forEach(task -> task.cancel(true));
+            }
+        }
+    }
+
+    private <V> void run(Callable<V> query, CompletableFuture<V> result) {
+        try {
+            if (!connectionSlots.tryAcquire(queryTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                result.completeExceptionally(new TimeoutException());
+                return;
+            }
+        } catch (InterruptedException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        try {
+            result.orTimeout(queryTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            result.complete(readOnlyTransaction.execute(status -> {
+                try {
+                    return query.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CheckedQueryException(e);
+                }
+            }));
+        } catch (CheckedQueryException e) {
+            result.completeExceptionally(e.getCause());
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        } finally {
+            connectionSlots.release();
+        }
+    }
+
+    // Carries a checked exception out of the transaction callback
+    private static final class CheckedQueryException extends RuntimeException {
+        CheckedQueryException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
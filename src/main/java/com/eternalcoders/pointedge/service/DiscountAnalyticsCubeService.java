@@ -0,0 +1,206 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.dto.DiscountCubeCellDTO;
+import com.eternalcoders.pointedge.entity.DiscountAnalyticsBucket;
+import com.eternalcoders.pointedge.entity.OrderDetails;
+import com.eternalcoders.pointedge.repository.DiscountAnalyticsBucketRepository;
+import com.eternalcoders.pointedge.repository.OrderDetailsRepository;
+import com.eternalcoders.pointedge.repository.ProductRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Service
+public class DiscountAnalyticsCubeService {
+    // Hourly buckets are kept this long before being folded into daily ones
+    private static final long HOURLY_RETENTION_HOURS = 48;
+
+    private final DiscountAnalyticsBucketRepository bucketRepository;
+    private final OrderDetailsRepository orderDetailsRepository;
+    private final ProductRepository productRepository;
+    private final DiscountPrefixSumService discountPrefixSumService;
+
+    public DiscountAnalyticsCubeService(DiscountAnalyticsBucketRepository bucketRepository,
+                                        OrderDetailsRepository orderDetailsRepository,
+                                        ProductRepository productRepository,
+                                        DiscountPrefixSumService discountPrefixSumService) {
+        this.bucketRepository = bucketRepository;
+        this.orderDetailsRepository = orderDetailsRepository;
+        this.productRepository = productRepository;
+        this.discountPrefixSumService = discountPrefixSumService;
+    }
+
+    private record Cell(LocalDateTime bucketStart, Long itemId, long categoryId, String loyaltyTier) {
+    }
+
+    // Cells are upserted in this order so concurrent checkouts cannot deadlock on them
+    private static final Comparator<Cell> LOCK_ORDER = Comparator.comparing(Cell::bucketStart)
+            .thenComparingLong(Cell::itemId)
+            .thenComparingLong(Cell::categoryId)
+            .thenComparing(Cell::loyaltyTier);
+
+    private static class Totals {
+        double amount;
+        double totalDiscount;
+        double itemDiscount;
+        double categoryDiscount;
+        double loyaltyDiscount;
+        double pointsEarned;
+        long lineCount;
+        long orderCount;
+        long itemDiscountLines;
+        double itemDiscountAmount;
+        long categoryDiscountLines;
+        double categoryDiscountAmount;
+        long loyaltyDiscountLines;
+        double loyaltyDiscountAmount;
+
+        void add(OrderDetails line, boolean firstLineOfOrder) {
+            double lineAmount = valueOf(line.getAmount());
+            double lineItemDiscount = valueOf(line.getItemDiscount());
+            double lineCategoryDiscount = valueOf(line.getCategoryDiscount());
+            double lineLoyaltyDiscount = valueOf(line.getLoyaltyDiscount());
+
+            amount += lineAmount;
+            totalDiscount += valueOf(line.getTotalDiscount());
+            itemDiscount += lineItemDiscount;
+            categoryDiscount += lineCategoryDiscount;
+            loyaltyDiscount += lineLoyaltyDiscount;
+            pointsEarned += valueOf(line.getPointsEarned());
+            lineCount++;
+            if (firstLineOfOrder) {
+                orderCount++;
+            }
+            if (lineItemDiscount > 0) {
+                itemDiscountLines++;
+                itemDiscountAmount += lineAmount;
+            }
+            if (lineCategoryDiscount > 0) {
+                categoryDiscountLines++;
+                categoryDiscountAmount += lineAmount;
+            }
+            if (lineLoyaltyDiscount > 0) {
+                loyaltyDiscountLines++;
+                loyaltyDiscountAmount += lineAmount;
+            }
+        }
+
+        private static double valueOf(Double value) {
+            return value != null ? value : 0.0;
+        }
+    }
+
+    /**
+     * Adds freshly saved order_details lines to their hourly buckets. Called inside the transaction
+     * that saves the lines, so the cube commits or rolls back with them.
+     */
+    @Transactional
+    public void recordOrderDetails(List<OrderDetails> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        Set<Long> itemIds = lines.stream().map(OrderDetails::getItemId).collect(Collectors.toSet());
+        Map<Long, Long> categoryIds = new HashMap<>();
+        for (Object[] row : productRepository.findCategoryIdsByIds(itemIds)) {
+            categoryIds.put((Long) row[0], (Long) row[1]);
+        }
+
+        Map<Cell, Totals> cells = new TreeMap<>(LOCK_ORDER);
+        Set<String> countedOrders = new HashSet<>();
+        for (OrderDetails line : lines) {
+            Cell cell = new Cell(
+                    line.getDatetime().truncatedTo(ChronoUnit.HOURS),
+                    line.getItemId(),
+                    categoryIds.getOrDefault(line.getItemId(), DiscountAnalyticsBucket.NO_CATEGORY),
+                    line.getLoyaltyTier() != null ? line.getLoyaltyTier() : DiscountAnalyticsBucket.NO_TIER
+            );
+            cells.computeIfAbsent(cell, c -> new Totals()).add(line, countedOrders.add(line.getOrderId()));
+        }
+
+        cells.forEach((cell, totals) -> bucketRepository.addToHourCell(
+                cell.bucketStart(), cell.itemId(), cell.categoryId(), cell.loyaltyTier(),
+                totals.amount, totals.totalDiscount, totals.itemDiscount, totals.categoryDiscount,
+                totals.loyaltyDiscount, totals.pointsEarned, totals.lineCount, totals.orderCount,
+                totals.itemDiscountLines, totals.itemDiscountAmount,
+                totals.categoryDiscountLines, totals.categoryDiscountAmount,
+                totals.loyaltyDiscountLines, totals.loyaltyDiscountAmount
+        ));
+        discountPrefixSumService.recordOrderDetails(lines);
+    }
+
+    /**
+     * Returns the order_details measures from start until now, per (item, category, loyalty tier).
+     * Whole buckets come from the cube; the part of the first bucket before start, at most an hour
+     * or a day of lines, is summed from order_details so the result is exact. A key can appear
+     * twice, once from each source.
+     */
+    @Transactional(readOnly = true)
+    public List<DiscountCubeCellDTO> getCellsSince(LocalDateTime start) {
+        LocalDateTime cubeStart = firstWholeBucketAt(start, LocalDateTime.now());
+
+        List<DiscountCubeCellDTO> cells = new ArrayList<>(bucketRepository.sumCells(cubeStart));
+        if (start.isBefore(cubeStart)) {
+            cells.addAll(orderDetailsRepository.sumCubeCells(start, cubeStart));
+        }
+        return cells;
+    }
+
+    // Only hourly buckets exist from the horizon on; before it, a bucket may already span a whole day
+    private LocalDateTime firstWholeBucketAt(LocalDateTime start, LocalDateTime now) {
+        ChronoUnit unit = start.isBefore(hourlyHorizon(now)) ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+        LocalDateTime bucketStart = start.truncatedTo(unit);
+        return bucketStart.isBefore(start) ? bucketStart.plus(1, unit) : bucketStart;
+    }
+
+    private LocalDateTime hourlyHorizon(LocalDateTime now) {
+        return now.minusHours(HOURLY_RETENTION_HOURS).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    /**
+     * Folds hourly buckets of days that ended more than 48 hours ago into daily buckets.
+     */
+    @Scheduled(cron = "0 5 * * * *")
+    @Transactional
+    public void compact() {
+        LocalDateTime horizon = hourlyHorizon(LocalDateTime.now());
+        bucketRepository.rollUpHoursBefore(horizon);
+        bucketRepository.deleteHoursBefore(horizon);
+    }
+
+    /**
+     * Recomputes the cube for an inclusive date range from order_details.
+     * Used for the initial backfill and to repair days after manual data fixes.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+
+        int deleted = bucketRepository.deleteRange(from, to);
+        int inserted = bucketRepository.backfillHours(from, to);
+        compact();
+        // running totals from the first rebuilt day on were built from the old buckets
+        discountPrefixSumService.rebuildFrom(startDate);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("startDate", startDate);
+        response.put("endDate", endDate);
+        response.put("rowsDeleted", deleted);
+        response.put("hourlyRowsInserted", inserted);
+        return response;
+    }
+}
@@ -0,0 +1,54 @@
+package com.eternalcoders.pointedge.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the discount analytics snapshot, computed at most once per minute. The first caller in
+ * a minute computes it; everyone else arriving in that minute waits for and shares that result.
+ */
+@Service
+public class DiscountAnalyticsSnapshotService {
+    private final OrderDetailsService orderDetailsService;
+
+    // Keyed by the minute the snapshot is for; only the current minute is kept
+    private final Map<LocalDateTime, CompletableFuture<Map<String, Object>>> snapshots = new ConcurrentHashMap<>();
+
+    public DiscountAnalyticsSnapshotService(OrderDetailsService orderDetailsService) {
+        this.orderDetailsService = orderDetailsService;
+    }
+
+    public Map<String, Object> getSnapshot() {
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+        CompletableFuture<Map<String, Object>> computation = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> snapshot = snapshots.putIfAbsent(minute, computation);
+        if (snapshot == null) {
+            snapshot = computation;
+            snapshots.keySet().removeIf(key -> key.isBefore(minute));
+            try {
+                computation.complete(Collections.unmodifiableMap(orderDetailsService.getAnalyticsSnapshot(minute)));
+            } catch (RuntimeException e) {
+                // Let the next caller try again instead of serving the failure for the rest of the minute
+                snapshots.remove(minute, computation);
+                computation.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return snapshot.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
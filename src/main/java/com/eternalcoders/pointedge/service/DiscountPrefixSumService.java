@@ -0,0 +1,236 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.dto.DiscountTotalsDTO;
+import com.eternalcoders.pointedge.entity.DiscountPrefixDay;
+import com.eternalcoders.pointedge.entity.OrderDetails;
+import com.eternalcoders.pointedge.repository.DiscountAnalyticsBucketRepository;
+import com.eternalcoders.pointedge.repository.DiscountPrefixDayRepository;
+import com.eternalcoders.pointedge.repository.OrderDetailsRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Totals of the order_details measures for arbitrary date ranges, from the daily running totals
+ * in discount_prefix_daily. The whole days of a range cost two prefix lookups and a subtraction;
+ * the partial days at its edges, and days the nightly run has not reached yet, are summed from
+ * order_details. The trailing two years of prefixes are held in memory.
+ */
+@Service
+public class DiscountPrefixSumService {
+    private static final int CACHED_YEARS = 2;
+
+    private final DiscountPrefixDayRepository prefixRepository;
+    private final DiscountAnalyticsBucketRepository bucketRepository;
+    private final OrderDetailsRepository orderDetailsRepository;
+
+    private final TransactionTemplate loadTransaction;
+
+    private volatile PrefixCache cache;
+    // Bumped whenever prefix rows change, so a load that raced with the change is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public DiscountPrefixSumService(DiscountPrefixDayRepository prefixRepository,
+                                    DiscountAnalyticsBucketRepository bucketRepository,
+                                    OrderDetailsRepository orderDetailsRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.prefixRepository = prefixRepository;
+        this.bucketRepository = bucketRepository;
+        this.orderDetailsRepository = orderDetailsRepository;
+        // Read-write and separate from the caller's read-only one, so the cache is read from the
+        // primary. It is only reloaded after the next change to the prefix rows, often a day away,
+        // so a load from a lagging replica would keep serving stale prefixes until then.
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /*
+     * firstDay is the first prefix row overall and lastDay the last one; prefixes holds one entry
+     * per day from cachedFrom through lastDay. lastDay is null while there are no rows yet.
+     */
+    private record PrefixCache(LocalDate firstDay, LocalDate lastDay, LocalDate cachedFrom, List<DiscountTotalsDTO> prefixes) {
+    }
+
+    /**
+     * Returns the totals of the order_details lines in [startDate, endDate], the end inclusive
+     * as in the BETWEEN queries it replaces.
+     */
+    @Transactional(readOnly = true)
+    public DiscountTotalsDTO getTotals(LocalDateTime startDate, LocalDateTime endDate) {
+        // datetimes are stored to the microsecond
+        LocalDateTime endExclusive = endDate.plus(1, ChronoUnit.MICROS);
+        PrefixCache prefixes = cache();
+
+        LocalDate firstDay = startDate.toLocalDate();
+        if (startDate.isAfter(firstDay.atStartOfDay())) {
+            firstDay = firstDay.plusDays(1);
+        }
+        LocalDate lastDay = endExclusive.toLocalDate().minusDays(1);
+        if (prefixes.lastDay() == null || lastDay.isAfter(prefixes.lastDay())) {
+            lastDay = prefixes.lastDay();
+        }
+
+        if (lastDay == null || firstDay.isAfter(lastDay)) {
+            return orderDetailsRepository.sumTotals(startDate, endExclusive);
+        }
+
+        DiscountTotalsDTO totals = prefixAt(prefixes, lastDay).minus(prefixAt(prefixes, firstDay.minusDays(1)));
+        if (startDate.isBefore(firstDay.atStartOfDay())) {
+            totals = totals.plus(orderDetailsRepository.sumTotals(startDate, firstDay.atStartOfDay()));
+        }
+        LocalDateTime prefixedUntil = lastDay.plusDays(1).atStartOfDay();
+        if (prefixedUntil.isBefore(endExclusive)) {
+            totals = totals.plus(orderDetailsRepository.sumTotals(prefixedUntil, endExclusive));
+        }
+        return totals;
+    }
+
+    private DiscountTotalsDTO prefixAt(PrefixCache prefixes, LocalDate day) {
+        if (day.isBefore(prefixes.firstDay())) {
+            return DiscountTotalsDTO.ZERO;
+        }
+        if (!day.isBefore(prefixes.cachedFrom())) {
+            return prefixes.prefixes().get((int) ChronoUnit.DAYS.between(prefixes.cachedFrom(), day));
+        }
+        return prefixRepository.findByStatDate(day).map(DiscountPrefixDay::toTotals).orElse(DiscountTotalsDTO.ZERO);
+    }
+
+    private PrefixCache cache() {
+        PrefixCache current = cache;
+        if (current != null) {
+            return current;
+        }
+
+        long loadedGeneration = generation.get();
+        PrefixCache loaded = load();
+        if (generation.get() == loadedGeneration) {
+            cache = loaded;
+        }
+        return loaded;
+    }
+
+    private PrefixCache load() {
+        return loadTransaction.execute(status -> loadFromPrimary());
+    }
+
+    private PrefixCache loadFromPrimary() {
+        DiscountPrefixDay last = prefixRepository.findTopByOrderByStatDateDesc().orElse(null);
+        if (last == null) {
+            return new PrefixCache(null, null, null, List.of());
+        }
+        LocalDate firstDay = prefixRepository.findTopByOrderByStatDateAsc().orElseThrow().getStatDate();
+        LocalDate cachedFrom = last.getStatDate().minusYears(CACHED_YEARS);
+        if (cachedFrom.isBefore(firstDay)) {
+            cachedFrom = firstDay;
+        }
+
+        List<DiscountTotalsDTO> prefixes = new ArrayList<>();
+        for (DiscountPrefixDay day : prefixRepository.findByStatDateGreaterThanEqualOrderByStatDate(cachedFrom)) {
+            prefixes.add(day.toTotals());
+        }
+        return new PrefixCache(firstDay, last.getStatDate(), cachedFrom, prefixes);
+    }
+
+    private void invalidateCache() {
+        generation.incrementAndGet();
+        cache = null;
+    }
+
+    /**
+     * Adds running totals for every completed day not covered yet, from the daily cube totals.
+     */
+    @Scheduled(cron = "0 15 0 * * *")
+    @Transactional
+    public void extend() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        DiscountPrefixDay last = prefixRepository.findTopByOrderByStatDateDesc().orElse(null);
+
+        LocalDate from;
+        DiscountTotalsDTO running;
+        if (last != null) {
+            from = last.getStatDate().plusDays(1);
+            running = last.toTotals();
+        } else {
+            LocalDateTime firstBucket = bucketRepository.findFirstBucketStart();
+            if (firstBucket == null) {
+                return;
+            }
+            from = firstBucket.toLocalDate();
+            running = DiscountTotalsDTO.ZERO;
+        }
+        if (from.isAfter(yesterday)) {
+            return;
+        }
+
+        // the cube holds daily buckets for older days and hourly ones for the last two
+        Map<LocalDate, DiscountTotalsDTO> dayTotals = new HashMap<>();
+        for (Object[] row : bucketRepository.sumTotalsByBucket(from.atStartOfDay(), yesterday.plusDays(1).atStartOfDay())) {
+            DiscountTotalsDTO bucket = new DiscountTotalsDTO(
+                    (Number) row[1], (Number) row[2], (Number) row[3], (Number) row[4], (Number) row[5], (Number) row[6],
+                    (Number) row[7], (Number) row[8], (Number) row[9], (Number) row[10], (Number) row[11], (Number) row[12]);
+            dayTotals.merge(((LocalDateTime) row[0]).toLocalDate(), bucket, DiscountTotalsDTO::plus);
+        }
+
+        List<DiscountPrefixDay> days = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(yesterday); day = day.plusDays(1)) {
+            running = running.plus(dayTotals.getOrDefault(day, DiscountTotalsDTO.ZERO));
+            days.add(new DiscountPrefixDay(day, running));
+        }
+        prefixRepository.saveAll(days);
+        invalidateCacheAfterCommit();
+    }
+
+    /**
+     * Drops the running totals from the given day on and recomputes them from the cube.
+     * Called after the cube itself was rebuilt for that day onwards.
+     */
+    @Transactional
+    public void rebuildFrom(LocalDate startDate) {
+        prefixRepository.deleteFrom(startDate);
+        extend();
+    }
+
+    /**
+     * Lines dated before today land in days that may already have running totals. Those totals
+     * are dropped from that day on; ranges fall back to order_details for the gap until the next
+     * nightly run fills it again.
+     */
+    @Transactional
+    public void recordOrderDetails(List<OrderDetails> lines) {
+        LocalDate today = LocalDate.now();
+        LocalDate earliest = lines.stream()
+                .map(line -> line.getDatetime().toLocalDate())
+                .min(LocalDate::compareTo)
+                .orElse(today);
+        if (earliest.isBefore(today) && prefixRepository.deleteFrom(earliest) > 0) {
+            invalidateCacheAfterCommit();
+        }
+    }
+
+    // Readers must not reload the cache from rows the transaction is still changing
+    private void invalidateCacheAfterCommit() {
+        invalidateCache();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateCache();
+                }
+            });
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.eternalcoders.pointedge.dto.BasketPricingDTO;
 import com.eternalcoders.pointedge.dto.DiscountDTO;
 import com.eternalcoders.pointedge.dto.LoyaltyThresholdsDTO;
 import com.eternalcoders.pointedge.entity.Customer;
@@ -27,7 +28,11 @@ import com.eternalcoders.pointedge.entity.Customer.Tier;
 import com.eternalcoders.pointedge.entity.Discount;
 import com.eternalcoders.pointedge.entity.Discount.DiscountType;
 import com.eternalcoders.pointedge.entity.LoyaltyThresholds;
+import com.eternalcoders.pointedge.entity.OrderDetails;
+import com.eternalcoders.pointedge.entity.Product;
+import com.eternalcoders.pointedge.repository.CustomerRepository;
 import com.eternalcoders.pointedge.repository.DiscountRepository;
+import com.eternalcoders.pointedge.repository.OrderDetailsRepository;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.slf4j.Logger;
@@ -49,6 +54,18 @@ public class DiscountService {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DiscountAnalyticsCubeService discountAnalyticsCubeService;
+
+    @Autowired
+    private DistinctCountSketchService distinctCountSketchService;
+
     // get all discounts
     public List<DiscountDTO> getAllDiscounts() {
         List<Discount> discountsList = discountRepository.findAll();
@@ -839,13 +856,17 @@ public LoyaltyThresholdsDTO updateLoyaltyThresholds(LoyaltyThresholdsDTO thresho
     
     // calculate discount value
     private BigDecimal calculateDiscountValue(DiscountDTO discount, BigDecimal totalAmount, Integer quantity) {
+        return calculateDiscountValue(discount.getPercentage(), discount.getAmount(), totalAmount, quantity);
+    }
+
+    private BigDecimal calculateDiscountValue(Object percentageValue, Object amountValue, BigDecimal totalAmount, Integer quantity) {
         try {
-            if (discount.getPercentage() != null) {
-                BigDecimal percentage = new BigDecimal(discount.getPercentage().toString());
+            if (percentageValue != null) {
+                BigDecimal percentage = new BigDecimal(percentageValue.toString());
                 return totalAmount.multiply(percentage)
                     .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-            } else if (discount.getAmount() != null) {
-                BigDecimal amount = new BigDecimal(discount.getAmount().toString());
+            } else if (amountValue != null) {
+                BigDecimal amount = new BigDecimal(amountValue.toString());
                 return amount.multiply(new BigDecimal(quantity));
             }
             return BigDecimal.ZERO;
@@ -854,6 +875,148 @@ public LoyaltyThresholdsDTO updateLoyaltyThresholds(LoyaltyThresholdsDTO thresho
         }
     }
 
+    /**
+     * Prices a basket against products the caller has already loaded, applying the same item,
+     * category and loyalty discount rules as getApplicableDiscountIds and the same points rules
+     * as calculatePointsUsageAndEarning, but with two discount queries for the whole basket.
+     *
+     * @param customer the paying customer, or null for a guest sale
+     * @param items    product ID to quantity
+     * @param products the product snapshot, keyed by ID, that must contain every item
+     */
+    public BasketPricingDTO priceBasket(Customer customer, Map<Long, Integer> items, Map<Long, Product> products) {
+        Discount.LoyaltyTier tier = customer != null && customer.getTier() != null
+            ? Discount.LoyaltyTier.valueOf(customer.getTier().toString())
+            : null;
+
+        Map<Long, List<Discount>> itemDiscounts = discountRepository.findActiveItemDiscountsByItemIds(items.keySet())
+            .stream()
+            .filter(d -> d.getLoyaltyType() == null || d.getLoyaltyType() == tier)
+            .collect(Collectors.groupingBy(d -> d.getItem().getId()));
+
+        Set<Long> categoryIds = items.keySet().stream()
+            .map(itemId -> products.get(itemId).getCategory().getId())
+            .collect(Collectors.toSet());
+        Map<Long, List<Discount>> categoryDiscounts = discountRepository.findActiveCategoryDiscountsByCategoryIds(categoryIds)
+            .stream()
+            .filter(d -> d.getLoyaltyType() == null || d.getLoyaltyType() == tier)
+            .collect(Collectors.groupingBy(d -> d.getCategory().getId()));
+
+        BasketPricingDTO pricing = new BasketPricingDTO();
+        pricing.setLoyaltyTier(tier != null ? tier.toString() : "UNKNOWN");
+        BigDecimal discountableSubtotal = BigDecimal.ZERO;
+
+        for (Map.Entry<Long, Integer> entry : items.entrySet()) {
+            Product product = products.get(entry.getKey());
+            int quantity = entry.getValue();
+
+            BasketPricingDTO.Line line = new BasketPricingDTO.Line();
+            line.setProductId(product.getId());
+            line.setProductName(product.getName());
+            line.setQuantity(quantity);
+            line.setUnitPrice(BigDecimal.valueOf(product.getPrice()));
+            line.setLineTotal(line.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
+
+            List<Discount> lineItemDiscounts = itemDiscounts.getOrDefault(product.getId(), Collections.emptyList());
+            List<Discount> lineCategoryDiscounts = categoryDiscounts.getOrDefault(product.getCategory().getId(), Collections.emptyList());
+            for (Discount discount : lineItemDiscounts) {
+                line.setItemDiscount(line.getItemDiscount().add(
+                    calculateDiscountValue(discount.getPercentage(), discount.getAmount(), line.getLineTotal(), quantity)));
+            }
+            for (Discount discount : lineCategoryDiscounts) {
+                line.setCategoryDiscount(line.getCategoryDiscount().add(
+                    calculateDiscountValue(discount.getPercentage(), discount.getAmount(), line.getLineTotal(), quantity)));
+            }
+            if (!lineItemDiscounts.isEmpty()) {
+                line.setDiscountId(lineItemDiscounts.get(0).getId());
+            } else if (!lineCategoryDiscounts.isEmpty()) {
+                line.setDiscountId(lineCategoryDiscounts.get(0).getId());
+            }
+            if (!lineItemDiscounts.isEmpty() || !lineCategoryDiscounts.isEmpty()) {
+                discountableSubtotal = discountableSubtotal.add(line.getLineTotal());
+            }
+
+            pricing.setSubtotal(pricing.getSubtotal().add(line.getLineTotal()));
+            pricing.setItemDiscount(pricing.getItemDiscount().add(line.getItemDiscount()));
+            pricing.setCategoryDiscount(pricing.getCategoryDiscount().add(line.getCategoryDiscount()));
+            pricing.getLines().add(line);
+        }
+
+        if (tier != null) {
+            for (Discount discount : discountRepository.findActiveLoyaltyDiscountsByTypeAndTier(tier)) {
+                pricing.setLoyaltyDiscount(pricing.getLoyaltyDiscount().add(
+                    calculateDiscountValue(discount.getPercentage(), discount.getAmount(), discountableSubtotal, 1)));
+            }
+        }
+
+        pricing.setTotalDiscount(pricing.getItemDiscount()
+            .add(pricing.getCategoryDiscount())
+            .add(pricing.getLoyaltyDiscount()));
+        pricing.setTotal(pricing.getSubtotal().subtract(pricing.getTotalDiscount()));
+
+        if (customer != null) {
+            double customerPoints = customer.getPoints() != null ? ((Number) customer.getPoints()).doubleValue() : 0.0;
+            pricing.setEarnedPoints(pricing.getSubtotal().doubleValue() / 100 * getLoyaltyThresholds().points);
+            pricing.setUsedPoints(Math.min(customerPoints, pricing.getLoyaltyDiscount().doubleValue()));
+        }
+
+        return pricing;
+    }
+
+    /**
+     * Settles a priced checkout for a known customer: moves their points balance and tier and
+     * writes one order_details row per basket line.
+     */
+    public void recordCheckout(Customer customer, String orderId, BasketPricingDTO pricing) {
+        double customerPoints = customer.getPoints() != null ? ((Number) customer.getPoints()).doubleValue() : 0.0;
+        LoyaltyThresholdsDTO thresholds = getLoyaltyThresholds();
+
+        double newPointsBalance = customerPoints - pricing.getUsedPoints() + pricing.getEarnedPoints();
+        Tier newTier = tierForPoints(newPointsBalance, thresholds);
+        customer.setPoints(newPointsBalance);
+        customer.setTier(newTier);
+        customerRepository.save(customer);
+
+        String loyaltyTier = newTier.toString();
+        int lineCount = pricing.getLines().size();
+        double loyaltyDiscountPerLine = pricing.getLoyaltyDiscount().doubleValue() / lineCount;
+        LocalDateTime datetime = LocalDateTime.now();
+
+        List<OrderDetails> orderDetails = new ArrayList<>();
+        for (BasketPricingDTO.Line line : pricing.getLines()) {
+            double itemDiscount = line.getItemDiscount().doubleValue();
+            double categoryDiscount = line.getCategoryDiscount().doubleValue();
+            orderDetails.add(OrderDetails.builder()
+                .orderId(orderId)
+                .customer(customer)
+                .itemId(line.getProductId())
+                .discountId(line.getDiscountId())
+                .datetime(datetime)
+                .amount(line.getLineTotal().doubleValue())
+                .totalDiscount(itemDiscount + categoryDiscount + loyaltyDiscountPerLine)
+                .itemDiscount(itemDiscount)
+                .categoryDiscount(categoryDiscount)
+                .loyaltyDiscount(loyaltyDiscountPerLine)
+                .loyaltyTier(loyaltyTier)
+                .pointsEarned(line.getLineTotal().doubleValue() / 100 * thresholds.points)
+                .build());
+        }
+        orderDetailsRepository.saveAll(orderDetails);
+        discountAnalyticsCubeService.recordOrderDetails(orderDetails);
+        distinctCountSketchService.recordOrderDetails(orderDetails);
+    }
+
+    private Tier tierForPoints(double points, LoyaltyThresholdsDTO thresholds) {
+        if (points >= thresholds.gold) {
+            return Tier.GOLD;
+        } else if (points >= thresholds.silver) {
+            return Tier.SILVER;
+        } else if (points >= thresholds.bronze) {
+            return Tier.BRONZE;
+        }
+        return Tier.NOTLOYALTY;
+    }
+
     //  final discount return with customer info
     public Map<String, Object> getFinalDiscountedOrderWithCustomerInfo(String phone, Map<Long, Integer> items) {
         Map<String, Object> response = new HashMap<>();
@@ -1208,6 +1371,15 @@ public LoyaltyThresholdsDTO updateLoyaltyThresholds(LoyaltyThresholdsDTO thresho
             return discountInfo;
         }
 
+        // Checked before any points change, since order details cannot be saved without a customer
+        Long customerId = (Long) discountInfo.get("customerId");
+        if (customerId == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Customer not found with phone: " + phone);
+            return response;
+        }
+
         Map<String, Object> pointsUpdateResult = updateCustomerPointsAfterPurchase(phone, items);
         if (!(Boolean) pointsUpdateResult.get("success")) {
             return pointsUpdateResult;
@@ -1220,7 +1392,6 @@ public LoyaltyThresholdsDTO updateLoyaltyThresholds(LoyaltyThresholdsDTO thresho
 
         String loyaltyTier = (String) loyaltyUpdateResult.get("newTier");
 
-        Long customerId = (Long) discountInfo.get("customerId");
         Double pointsEarned = (Double) discountInfo.get("earnedPoints");
         Double totalLoyaltyDiscount = ((Number) discountInfo.get("totalLoyaltyDiscount")).doubleValue();
         Double totalCategoryDiscount = ((Number) discountInfo.get("totalCategoryDiscount")).doubleValue();
@@ -1233,6 +1404,9 @@ public LoyaltyThresholdsDTO updateLoyaltyThresholds(LoyaltyThresholdsDTO thresho
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> itemDetails = (List<Map<String, Object>>) discountInfo.get("itemDetails");
         
+        Customer customer = customerRepository.getReferenceById(customerId);
+        LocalDateTime datetime = LocalDateTime.now();
+        List<OrderDetails> orderDetails = new ArrayList<>();
         for (Map<String, Object> item : itemDetails) {
             Long itemId = ((Number) item.get("itemId")).longValue();
             Double amount = ((Number) item.get("totalAmount")).doubleValue();
@@ -1251,21 +1425,24 @@ public LoyaltyThresholdsDTO updateLoyaltyThresholds(LoyaltyThresholdsDTO thresho
            
             Double itemPointsEarned = (amount / 100) * pointsRate;
             
-            discountRepository.saveOrderDetails(
-                orderId,  
-                customerId,
-                itemId,
-                discountId,
-                LocalDateTime.now(),
-                amount,
-                totalDiscount,
-                itemDiscount,
-                categoryDiscount,
-                loyaltyDiscount,
-                loyaltyTier,
-                itemPointsEarned
-            );
+            orderDetails.add(OrderDetails.builder()
+                .orderId(orderId)
+                .customer(customer)
+                .itemId(itemId)
+                .discountId(discountId)
+                .datetime(datetime)
+                .amount(amount)
+                .totalDiscount(totalDiscount)
+                .itemDiscount(itemDiscount)
+                .categoryDiscount(categoryDiscount)
+                .loyaltyDiscount(loyaltyDiscount)
+                .loyaltyTier(loyaltyTier)
+                .pointsEarned(itemPointsEarned)
+                .build());
         }
+        orderDetailsRepository.saveAll(orderDetails);
+        discountAnalyticsCubeService.recordOrderDetails(orderDetails);
+        distinctCountSketchService.recordOrderDetails(orderDetails);
         
         Map<String, Object> response = new HashMap<>();
         response.putAll(discountInfo);
@@ -1298,16 +1475,7 @@ public LoyaltyThresholdsDTO updateLoyaltyThresholds(LoyaltyThresholdsDTO thresho
             
             LoyaltyThresholdsDTO thresholds = getLoyaltyThresholds();
             
-            Tier newTier;
-            if (customerPoints >= thresholds.gold) {
-                newTier = Tier.GOLD;
-            } else if (customerPoints >= thresholds.silver) {
-                newTier = Tier.SILVER;
-            } else if (customerPoints >= thresholds.bronze) {
-                newTier = Tier.BRONZE;
-            } else {
-                newTier = Tier.NOTLOYALTY;
-            }
+            Tier newTier = tierForPoints(customerPoints, thresholds);
             
             discountRepository.updateCustomerTier(phone, newTier);
             
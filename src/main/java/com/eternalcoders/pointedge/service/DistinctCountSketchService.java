@@ -0,0 +1,245 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.entity.DailyDistinctSketch;
+import com.eternalcoders.pointedge.entity.OrderDetails;
+import com.eternalcoders.pointedge.repository.DailyDistinctSketchRepository;
+import com.eternalcoders.pointedge.repository.OrderDetailsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate distinct customer and order counts per loyalty tier, from daily HyperLogLog
+ * sketches merged on read. Whole days come from the sketches; the partial days at the edges of
+ * a window are read from order_details, so the cost of a count grows with the number of days
+ * in the window, not with the number of orders. The exact counts stay on OrderDetailsRepository.
+ *
+ * Checkouts add to in-memory sketches that are merged into the rows every FLUSH_INTERVAL_MS, so
+ * they never wait on the lock of their day's row. Reads include what is still in memory. Adds
+ * not flushed when the process dies are lost until rebuild() runs for their days.
+ */
+@Slf4j
+@Service
+public class DistinctCountSketchService {
+    private static final String NO_TIER = "NOTLOYALTY";
+    private static final long FLUSH_INTERVAL_MS = 10_000;
+
+    private final DailyDistinctSketchRepository sketchRepository;
+    private final OrderDetailsRepository orderDetailsRepository;
+    private final TransactionTemplate flushTransaction;
+
+    // Committed adds not yet merged into the rows. Sketches are only touched inside the map's
+    // per-key compute calls, which keeps them safe from concurrent checkouts and the flush.
+    private final ConcurrentHashMap<Cell, HyperLogLog> unflushed = new ConcurrentHashMap<>();
+
+    public DistinctCountSketchService(DailyDistinctSketchRepository sketchRepository,
+                                      OrderDetailsRepository orderDetailsRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.sketchRepository = sketchRepository;
+        this.orderDetailsRepository = orderDetailsRepository;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    private record Cell(DailyDistinctSketch.Kind kind, LocalDate statDate, String loyaltyTier) {
+    }
+
+    // Cells are locked in this order so concurrent checkouts cannot deadlock on them
+    private static final Comparator<Cell> LOCK_ORDER = Comparator.comparing(Cell::kind)
+            .thenComparing(Cell::statDate)
+            .thenComparing(Cell::loyaltyTier);
+
+    /**
+     * Adds the customers and orders of freshly saved order_details lines to their day's sketches.
+     * Called inside the transaction that saves the lines; the adds are kept once it commits.
+     */
+    public void recordOrderDetails(List<OrderDetails> lines) {
+        Map<Cell, HyperLogLog> additions = new HashMap<>();
+        for (OrderDetails line : lines) {
+            LocalDate statDate = line.getDatetime().toLocalDate();
+            String tier = line.getLoyaltyTier() != null ? line.getLoyaltyTier() : NO_TIER;
+            if (line.getCustomer() != null) {
+                additions.computeIfAbsent(new Cell(DailyDistinctSketch.Kind.CUSTOMER, statDate, tier), c -> new HyperLogLog())
+                        .add(line.getCustomer().getId());
+            }
+            additions.computeIfAbsent(new Cell(DailyDistinctSketch.Kind.ORDER, statDate, tier), c -> new HyperLogLog())
+                    .add(line.getOrderId());
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    buffer(additions);
+                }
+            });
+        } else {
+            buffer(additions);
+        }
+    }
+
+    private void buffer(Map<Cell, HyperLogLog> additions) {
+        additions.forEach((cell, addition) -> unflushed.merge(cell, addition, (buffered, added) -> {
+            buffered.merge(added);
+            return buffered;
+        }));
+    }
+
+    /**
+     * Merges the buffered adds into their rows, one row lock per day and tier instead of one
+     * per checkout. Adds that fail to be written go back into the buffer for the next run.
+     */
+    @Scheduled(fixedDelay = FLUSH_INTERVAL_MS)
+    @PreDestroy
+    public void flush() {
+        Map<Cell, HyperLogLog> batch = new TreeMap<>(LOCK_ORDER);
+        for (Cell cell : unflushed.keySet()) {
+            HyperLogLog buffered = unflushed.remove(cell);
+            if (buffered != null) {
+                batch.put(cell, buffered);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            flushTransaction.executeWithoutResult(status -> batch.forEach((cell, addition) -> {
+                sketchRepository.insertIfAbsent(cell.kind().name(), cell.statDate(), cell.loyaltyTier(), new HyperLogLog().toBytes());
+                DailyDistinctSketch sketch = sketchRepository.findForUpdate(cell.kind(), cell.statDate(), cell.loyaltyTier())
+                        .orElseThrow();
+                HyperLogLog merged = HyperLogLog.fromBytes(sketch.getRegisters());
+                merged.merge(addition);
+                sketch.setRegisters(merged.toBytes());
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Distinct count sketches not flushed, retrying next run: {}", e.getMessage());
+            buffer(batch);
+        }
+    }
+
+    // estimated distinct customers per loyalty tier with an order line in [start, end]
+    @Transactional(readOnly = true)
+    public Map<String, Long> estimateCustomersByTier(LocalDateTime start, LocalDateTime end) {
+        Map<String, Long> counts = new HashMap<>();
+        sketchesByTier(DailyDistinctSketch.Kind.CUSTOMER, start, end)
+                .forEach((tier, sketch) -> counts.put(tier, sketch.estimate()));
+        return counts;
+    }
+
+    // estimated distinct orders in [start, end], all tiers together
+    @Transactional(readOnly = true)
+    public long estimateOrders(LocalDateTime start, LocalDateTime end) {
+        HyperLogLog orders = new HyperLogLog();
+        sketchesByTier(DailyDistinctSketch.Kind.ORDER, start, end).values().forEach(orders::merge);
+        return orders.estimate();
+    }
+
+    /*
+     * Today's sketch is complete up to now, so a window running to now takes it whole. Edge reads
+     * may overlap the sketched days; adding an id twice does not change a sketch.
+     */
+    private Map<String, HyperLogLog> sketchesByTier(DailyDistinctSketch.Kind kind, LocalDateTime start, LocalDateTime end) {
+        Map<String, HyperLogLog> sketches = new HashMap<>();
+        // the end is inclusive, as in the exact BETWEEN queries; datetimes are stored to the microsecond
+        LocalDateTime endExclusive = end.plus(1, ChronoUnit.MICROS);
+
+        LocalDate firstDay = start.toLocalDate();
+        if (start.isAfter(firstDay.atStartOfDay())) {
+            firstDay = firstDay.plusDays(1);
+        }
+        LocalDate lastDay = !end.isBefore(LocalDateTime.now()) ? end.toLocalDate() : endExclusive.toLocalDate().minusDays(1);
+
+        if (firstDay.isAfter(lastDay)) {
+            addIds(sketches, kind, start, endExclusive);
+            return sketches;
+        }
+
+        for (DailyDistinctSketch sketch : sketchRepository.findByKindAndStatDateBetween(kind, firstDay, lastDay)) {
+            sketches.computeIfAbsent(sketch.getLoyaltyTier(), tier -> new HyperLogLog())
+                    .merge(HyperLogLog.fromBytes(sketch.getRegisters()));
+        }
+        addUnflushed(sketches, kind, firstDay, lastDay);
+        if (start.isBefore(firstDay.atStartOfDay())) {
+            addIds(sketches, kind, start, firstDay.atStartOfDay());
+        }
+        LocalDateTime sketchedUntil = lastDay.plusDays(1).atStartOfDay();
+        if (sketchedUntil.isBefore(endExclusive)) {
+            addIds(sketches, kind, sketchedUntil, endExclusive);
+        }
+        return sketches;
+    }
+
+    private void addUnflushed(Map<String, HyperLogLog> sketches, DailyDistinctSketch.Kind kind, LocalDate firstDay, LocalDate lastDay) {
+        for (Cell cell : unflushed.keySet()) {
+            if (cell.kind() != kind || cell.statDate().isBefore(firstDay) || cell.statDate().isAfter(lastDay)) {
+                continue;
+            }
+            HyperLogLog target = sketches.computeIfAbsent(cell.loyaltyTier(), tier -> new HyperLogLog());
+            unflushed.computeIfPresent(cell, (c, buffered) -> {
+                target.merge(buffered);
+                return buffered;
+            });
+        }
+    }
+
+    private void addIds(Map<String, HyperLogLog> sketches, DailyDistinctSketch.Kind kind, LocalDateTime from, LocalDateTime to) {
+        if (kind == DailyDistinctSketch.Kind.CUSTOMER) {
+            for (Object[] row : orderDetailsRepository.findTierCustomerIds(from, to)) {
+                sketches.computeIfAbsent((String) row[0], tier -> new HyperLogLog()).add((Long) row[1]);
+            }
+        } else {
+            for (Object[] row : orderDetailsRepository.findTierOrderIds(from, to)) {
+                sketches.computeIfAbsent((String) row[0], tier -> new HyperLogLog()).add((String) row[1]);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the sketches for an inclusive date range from order_details, one day at a time.
+     * Used for the initial backfill and to repair days after manual data fixes.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate startDate, LocalDate endDate) {
+        int deleted = sketchRepository.deleteRange(startDate, endDate);
+        int inserted = 0;
+
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            for (DailyDistinctSketch.Kind kind : DailyDistinctSketch.Kind.values()) {
+                Map<String, HyperLogLog> sketches = new HashMap<>();
+                addIds(sketches, kind, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+                for (Map.Entry<String, HyperLogLog> entry : sketches.entrySet()) {
+                    DailyDistinctSketch sketch = new DailyDistinctSketch();
+                    sketch.setKind(kind);
+                    sketch.setStatDate(day);
+                    sketch.setLoyaltyTier(entry.getKey());
+                    sketch.setRegisters(entry.getValue().toBytes());
+                    sketchRepository.save(sketch);
+                    inserted++;
+                }
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("startDate", startDate);
+        response.put("endDate", endDate);
+        response.put("sketchesDeleted", deleted);
+        response.put("sketchesInserted", inserted);
+        return response;
+    }
+}
@@ -20,6 +20,16 @@ public class InvoiceService {
 
     @Transactional
     public Invoice createInvoiceFromOrder(Order order) {
+        return invoiceRepository.save(buildInvoiceFromOrder(order));
+    }
+
+    // Saves the invoices of a batch of orders together so their inserts can be batched
+    @Transactional
+    public List<Invoice> createInvoicesFromOrders(List<Order> orders) {
+        return invoiceRepository.saveAll(orders.stream().map(this::buildInvoiceFromOrder).toList());
+    }
+
+    private Invoice buildInvoiceFromOrder(Order order) {
         Invoice invoice = new Invoice();
 
         // Generate Invoice Number (Example: INV-UUID)
@@ -41,6 +51,6 @@ public class InvoiceService {
         }).toList();
 
         invoice.setItems(invoiceItems);
-        return invoiceRepository.save(invoice);
+        return invoice;
     }
 }
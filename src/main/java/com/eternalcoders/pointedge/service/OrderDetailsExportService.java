@@ -0,0 +1,86 @@
+package com.eternalcoders.pointedge.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes order_details rows for an inclusive date range as CSV. Rows are streamed from the
+ * database one at a time and written straight to the output, so memory use does not grow with
+ * the range.
+ */
+@Service
+public class OrderDetailsExportService {
+
+    private static final String[] COLUMNS = {
+        "id", "order_id", "datetime", "customer_id", "item_id", "discount_id", "amount", "total_discount",
+        "item_discount", "category_discount", "loyalty_discount", "loyalty_tier", "points_earned"
+    };
+
+    private static final String EXPORT_QUERY = "SELECT " + String.join(", ", COLUMNS) + " FROM order_details "
+        + "WHERE datetime BETWEEN ? AND ? ORDER BY datetime, id";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate exportTransaction;
+
+    public OrderDetailsExportService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL Connector/J streams a forward-only, read-only result set row by row only for this fetch size
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        // Read-only so the export is routed to the replica when one is configured, away from checkout
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
+    }
+
+    public void writeCsv(LocalDateTime startDate, LocalDateTime endDate, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\n");
+
+        try {
+            exportTransaction.executeWithoutResult(status ->
+                    streamingJdbcTemplate.query(EXPORT_QUERY, (ResultSet rs) -> writeRow(rs, writer), startDate, endDate));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeRow(ResultSet rs, Writer writer) throws SQLException {
+        try {
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                String value = rs.getString(i);
+                if (value != null) {
+                    writer.write(escape(value));
+                }
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            // Client went away; unwound in writeCsv so the query stops
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,151 @@
+package com.eternalcoders.pointedge.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps order_details range-partitioned by month on datetime, so the date-bounded analytics
+ * queries only touch the months they ask for, and moves months past the retention period into
+ * the compressed order_details_history table.
+ * <p>
+ * MySQL partitioning needs the partition column in the primary key and allows no foreign keys,
+ * which is why the customer relation of OrderDetails is mapped without a constraint. The orders
+ * table stays unpartitioned: order_item, invoices and returns all hold foreign keys to it.
+ */
+@Service
+public class OrderDetailsPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderDetailsPartitionService.class);
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    // Partitions are created this many months ahead of the current one
+    private static final int MONTHS_AHEAD = 2;
+
+    private static final String COLUMNS = "id, customer_id, item_id, discount_id, datetime, amount, total_discount, "
+            + "item_discount, category_discount, loyalty_discount, loyalty_tier, points_earned, order_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Months of order details kept in the live table; must cover the longest analytics window
+    @Value("${pointedge.order-details.retention-months:36}")
+    private int retentionMonths;
+
+    public OrderDetailsPartitionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the history table and partitions order_details if that has not happened yet.
+     * A one-off migration, run by OrderDetailsPartitionSeeder only when it is switched on; once
+     * the table is partitioned, further runs change nothing.
+     */
+    public void partitionIfNeeded() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS order_details_history (
+                    id BIGINT NOT NULL PRIMARY KEY,
+                    customer_id BIGINT NOT NULL,
+                    item_id BIGINT NOT NULL,
+                    discount_id BIGINT,
+                    datetime DATETIME(6) NOT NULL,
+                    amount DOUBLE NOT NULL,
+                    total_discount DOUBLE NOT NULL,
+                    item_discount DOUBLE,
+                    category_discount DOUBLE,
+                    loyalty_discount DOUBLE,
+                    loyalty_tier VARCHAR(255),
+                    points_earned DOUBLE,
+                    order_id VARCHAR(255) NOT NULL,
+                    KEY idx_order_details_history_datetime (datetime)
+                ) ROW_FORMAT=COMPRESSED
+                """);
+
+        if (!monthPartitions().isEmpty()) {
+            return;
+        }
+
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'order_details' AND CONSTRAINT_TYPE = 'FOREIGN KEY'",
+                String.class);
+        for (String foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE order_details DROP FOREIGN KEY " + foreignKey);
+        }
+        jdbcTemplate.execute("ALTER TABLE order_details DROP PRIMARY KEY, ADD PRIMARY KEY (id, datetime)");
+
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(datetime) FROM order_details", LocalDateTime.class);
+        YearMonth current = YearMonth.now();
+        YearMonth first = oldest != null && YearMonth.from(oldest).isBefore(current) ? YearMonth.from(oldest) : current;
+
+        List<String> partitions = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(current.plusMonths(MONTHS_AHEAD)); month = month.plusMonths(1)) {
+            partitions.add(partitionDefinition(month));
+        }
+        partitions.add("PARTITION pmax VALUES LESS THAN (MAXVALUE)");
+
+        jdbcTemplate.execute("ALTER TABLE order_details PARTITION BY RANGE COLUMNS(datetime) ("
+                + String.join(", ", partitions) + ")");
+        logger.info("Partitioned order_details by month from {}", first);
+    }
+
+    /**
+     * Adds partitions for the coming months and archives months past the retention period.
+     */
+    @Scheduled(cron = "0 30 2 * * *")
+    public void maintainPartitions() {
+        List<YearMonth> months = monthPartitions();
+        if (months.isEmpty()) {
+            return;
+        }
+
+        YearMonth last = months.get(months.size() - 1);
+        YearMonth target = YearMonth.now().plusMonths(MONTHS_AHEAD);
+        for (YearMonth month = last.plusMonths(1); !month.isAfter(target); month = month.plusMonths(1)) {
+            jdbcTemplate.execute("ALTER TABLE order_details REORGANIZE PARTITION pmax INTO ("
+                    + partitionDefinition(month) + ", PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+        }
+
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        for (YearMonth month : months) {
+            if (month.isBefore(oldestKept)) {
+                archive(month);
+            }
+        }
+    }
+
+    // The copy is idempotent, so a failure between the copy and the drop is repaired by the next run
+    private void archive(YearMonth month) {
+        String partition = month.format(PARTITION_NAME);
+        int copied = jdbcTemplate.update("INSERT IGNORE INTO order_details_history (" + COLUMNS + ") "
+                + "SELECT " + COLUMNS + " FROM order_details PARTITION (" + partition + ")");
+        jdbcTemplate.execute("ALTER TABLE order_details DROP PARTITION " + partition);
+        logger.info("Archived {} order details from partition {}", copied, partition);
+    }
+
+    private List<YearMonth> monthPartitions() {
+        return jdbcTemplate.queryForList(
+                        "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'order_details' "
+                                + "AND PARTITION_NAME IS NOT NULL AND PARTITION_NAME <> 'pmax' "
+                                + "ORDER BY PARTITION_ORDINAL_POSITION",
+                        String.class)
+                .stream()
+                .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                .toList();
+    }
+
+    private String partitionDefinition(YearMonth month) {
+        return "PARTITION " + month.format(PARTITION_NAME)
+                + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+}
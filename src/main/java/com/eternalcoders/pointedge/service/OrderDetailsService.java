@@ -1,17 +1,29 @@
 package com.eternalcoders.pointedge.service;
 
+import com.eternalcoders.pointedge.dto.DiscountCubeCellDTO;
+import com.eternalcoders.pointedge.dto.DiscountTotalsDTO;
+import com.eternalcoders.pointedge.entity.DiscountAnalyticsBucket;
 import com.eternalcoders.pointedge.repository.CustomerRepository;
 import com.eternalcoders.pointedge.repository.OrderDetailsRepository;
 import com.eternalcoders.pointedge.repository.DiscountRepository;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
@@ -26,59 +38,74 @@ public class OrderDetailsService {
     @Autowired
     private DiscountRepository discountRepository;
 
+    @Autowired
+    private DiscountAnalyticsCubeService discountAnalyticsCubeService;
+
+    @Autowired
+    private DistinctCountSketchService distinctCountSketchService;
+
+    @Autowired
+    private DiscountPrefixSumService discountPrefixSumService;
+
+    // Methods that fan out through runAll take no transaction of their own: an outer one would hold
+    // a pooled connection while each query waits for another. The rest run read-only.
+    @Autowired
+    private DashboardQueryExecutor dashboardQueryExecutor;
+
+    // items in the dashboard's top list unless the caller asks for another number, and the most it may ask for
+    private static final int DEFAULT_TOP_ITEMS = 3;
+    private static final int MAX_TOP_ITEMS = 100;
+
+    private record DiscountRank(Long id, double amount, double discount, long count) {
+        DiscountRank plus(DiscountRank other) {
+            return new DiscountRank(id, amount + other.amount, discount + other.discount, count + other.count);
+        }
+    }
+
     // count orders by time range
     public Map<String, Long> getOrderCounts() {
-        LocalDateTime now = LocalDateTime.now();
+        return orderCounts(cellsByPeriod(LocalDateTime.now()));
+    }
+
+    private Map<String, Long> orderCounts(Map<String, List<DiscountCubeCellDTO>> cellsByPeriod) {
         Map<String, Long> orderCounts = new HashMap<>();
         
-        // Last 24 hours
-        orderCounts.put("last24Hours", 
-            orderDetailsRepository.countTotalOrdersInDateRange(now.minusHours(24), now));
-        
-        // Last 7 days
-        orderCounts.put("last7Days", 
-            orderDetailsRepository.countTotalOrdersInDateRange(now.minusDays(7), now));
-        
-        // Last 30 days
-        orderCounts.put("last30Days", 
-            orderDetailsRepository.countTotalOrdersInDateRange(now.minusDays(30), now));
-        
-        // Last year
-        orderCounts.put("lastYear", 
-            orderDetailsRepository.countTotalOrdersInDateRange(now.minusYears(1), now));
+        for (Map.Entry<String, List<DiscountCubeCellDTO>> period : cellsByPeriod.entrySet()) {
+            long orders = 0;
+            for (DiscountCubeCellDTO cell : period.getValue()) {
+                orders += cell.getOrderCount();
+            }
+            orderCounts.put(period.getKey(), orders);
+        }
         
         return orderCounts;
     }
     
     // count discounts by time range
     public Map<String, Map<String, Long>> getDiscountCountsByType() {
-        LocalDateTime now = LocalDateTime.now();
-        Map<String, Map<String, Long>> result = new HashMap<>();
-        
-        Map<String, LocalDateTime> timePeriods = new HashMap<>();
-        timePeriods.put("last24Hours", now.minusHours(24));
-        timePeriods.put("last7Days", now.minusDays(7));
-        timePeriods.put("last30Days", now.minusDays(30));
-        timePeriods.put("lastYear", now.minusYears(1));
-        
+        return discountCountsByType(cellsByPeriod(LocalDateTime.now()));
+    }
+
+    private Map<String, Map<String, Long>> discountCountsByType(Map<String, List<DiscountCubeCellDTO>> cellsByPeriod) {
         Map<String, Long> itemDiscountCounts = new HashMap<>();
         Map<String, Long> categoryDiscountCounts = new HashMap<>();
         Map<String, Long> loyaltyDiscountCounts = new HashMap<>();
         
-        for (Map.Entry<String, LocalDateTime> period : timePeriods.entrySet()) {
-            String periodName = period.getKey();
-            LocalDateTime startDate = period.getValue();
-            
-            itemDiscountCounts.put(periodName, 
-                orderDetailsRepository.countOrdersWithItemDiscountInDateRange(startDate, now));
-            
-            categoryDiscountCounts.put(periodName, 
-                orderDetailsRepository.countOrdersWithCategoryDiscountInDateRange(startDate, now));
-            
-            loyaltyDiscountCounts.put(periodName, 
-                orderDetailsRepository.countOrdersWithLoyaltyDiscountInDateRange(startDate, now));
+        for (Map.Entry<String, List<DiscountCubeCellDTO>> period : cellsByPeriod.entrySet()) {
+            long itemDiscounts = 0;
+            long categoryDiscounts = 0;
+            long loyaltyDiscounts = 0;
+            for (DiscountCubeCellDTO cell : period.getValue()) {
+                itemDiscounts += cell.getItemDiscountLines();
+                categoryDiscounts += cell.getCategoryDiscountLines();
+                loyaltyDiscounts += cell.getLoyaltyDiscountLines();
+            }
+            itemDiscountCounts.put(period.getKey(), itemDiscounts);
+            categoryDiscountCounts.put(period.getKey(), categoryDiscounts);
+            loyaltyDiscountCounts.put(period.getKey(), loyaltyDiscounts);
         }
         
+        Map<String, Map<String, Long>> result = new HashMap<>();
         result.put("ITEM", itemDiscountCounts);
         result.put("CATEGORY", categoryDiscountCounts);
         result.put("LOYALTY", loyaltyDiscountCounts);
@@ -86,79 +113,60 @@ public class OrderDetailsService {
         return result;
     }
 
-    // count active customers by time range  
-    public Map<String, Object> getCustomerCountsByTier() {
-        LocalDateTime now = LocalDateTime.now();
+    // count active customers by time range, per loyalty tier on their order lines; exact counts for audits
+    public Map<String, Object> getCustomerCountsByTier(boolean exact) {
+        return customerCountsByTier(LocalDateTime.now(), exact);
+    }
+
+    private Map<String, Object> customerCountsByTier(LocalDateTime now, boolean exact) {
         Map<String, Object> result = new HashMap<>();
         
-        Long totalCustomers = orderDetailsRepository.countTotalCustomers();
-        result.put("totalcustomers", totalCustomers);
+        Map<String, LocalDateTime> timePeriods = timePeriods(now);
         
-        Map<String, LocalDateTime> timePeriods = new HashMap<>();
-        timePeriods.put("last24Hours", now.minusHours(24));
-        timePeriods.put("last7Days", now.minusDays(7));
-        timePeriods.put("last30Days", now.minusDays(30));
-        timePeriods.put("lastYear", now.minusYears(1));
+        DashboardQueryExecutor.Batch batch = dashboardQueryExecutor.batch();
+        Supplier<Long> totalCustomers = batch.add(orderDetailsRepository::countTotalCustomers);
+        Map<String, Supplier<Map<String, Long>>> countsByPeriod = new LinkedHashMap<>();
+        timePeriods.forEach((period, startDate) ->
+            countsByPeriod.put(period, batch.add(() -> customerCountsByTier(startDate, now, exact))));
+        batch.join();
         
-        String[] loyaltyTiers = {"GOLD", "SILVER", "BRONZE", "NOTLOYALTY"};
+        result.put("totalcustomers", totalCustomers.get());
         
-        for (String tier : loyaltyTiers) {
-            Map<String, Object> tierCounts = new HashMap<>();
-            for (String period : timePeriods.keySet()) {
-                tierCounts.put(period, 0L);
-            }
-            result.put(tier, tierCounts);
-        }
+        Map<String, Map<String, Object>> tierCountsByTier = tierPeriodMaps(timePeriods.keySet());
+        result.putAll(tierCountsByTier);
         
-        for (Map.Entry<String, LocalDateTime> period : timePeriods.entrySet()) {
-            String periodName = period.getKey();
-            LocalDateTime startDate = period.getValue();
-            
-            List<Object[]> counts = orderDetailsRepository.countCustomersByTierInDateRange(startDate, now);
-            
-            for (Object[] count : counts) {
-                Object tierObj = count[0];
-                String tierStr;
-                
-                if (tierObj == null) {
-                    tierStr = "NOTLOYALTY";
-                } else {
-                    tierStr = tierObj.toString();
-                }
-                
-                Long customerCount = ((Number) count[1]).longValue();
-                
-                if (result.containsKey(tierStr)) {
-                    ((Map<String, Object>)result.get(tierStr)).put(periodName, customerCount);
-                } else if ("NOTLOYALTY".equals(tierStr)) {
-                    ((Map<String, Object>)result.get("NOTLOYALTY")).put(periodName, customerCount);
+        countsByPeriod.forEach((periodName, counts) ->
+            counts.get().forEach((tier, customerCount) -> {
+                if (tierCountsByTier.containsKey(tier)) {
+                    tierCountsByTier.get(tier).put(periodName, customerCount);
                 }
-            }
-        }
+            }));
         
         return result;
     }
 
+    // distinct customers per tier, merged from the daily sketches unless exact counts are asked for
+    private Map<String, Long> customerCountsByTier(LocalDateTime startDate, LocalDateTime endDate, boolean exact) {
+        if (!exact) {
+            return distinctCountSketchService.estimateCustomersByTier(startDate, endDate);
+        }
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : orderDetailsRepository.countCustomersByLineTierInDateRange(startDate, endDate)) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
     // add total loyalty discount amount and counts
     public Map<String, Object> getLoyaltyDiscountDataByTier() {
-        LocalDateTime now = LocalDateTime.now();
+        return loyaltyDiscountDataByTier(cellsByPeriod(LocalDateTime.now()));
+    }
+
+    private Map<String, Object> loyaltyDiscountDataByTier(Map<String, List<DiscountCubeCellDTO>> cellsByPeriod) {
         Map<String, Object> result = new HashMap<>();
-        
-        Map<String, LocalDateTime> timePeriods = new HashMap<>();
-        timePeriods.put("last24Hours", now.minusHours(24));
-        timePeriods.put("last7Days", now.minusDays(7));
-        timePeriods.put("last30Days", now.minusDays(30));
-        timePeriods.put("lastYear", now.minusYears(1));
       
-        String[] loyaltyTiers = {"GOLD", "SILVER", "BRONZE", "NOTLOYALTY"};
-        
-        for (String tier : loyaltyTiers) {
-            Map<String, Object> tierCounts = new HashMap<>();
-            for (String period : timePeriods.keySet()) {
-                tierCounts.put(period, 0L);
-            }
-            result.put(tier, tierCounts);
-        }
+        Map<String, Map<String, Object>> tierCountsByTier = tierPeriodMaps(cellsByPeriod.keySet());
+        result.putAll(tierCountsByTier);
         
         Map<String, Double> totalDiscountMap = new HashMap<>();
         totalDiscountMap.put("goldtotaldiscount", 0.0);
@@ -166,100 +174,94 @@ public class OrderDetailsService {
         totalDiscountMap.put("bronzetotaldiscount", 0.0);
         result.put("totaldiscount", totalDiscountMap);
         
-        for (Map.Entry<String, LocalDateTime> period : timePeriods.entrySet()) {
+        for (Map.Entry<String, List<DiscountCubeCellDTO>> period : cellsByPeriod.entrySet()) {
             String periodName = period.getKey();
-            LocalDateTime startDate = period.getValue();
-            
-            List<Object[]> counts = orderDetailsRepository.countOrdersWithLoyaltyDiscountByTierInDateRange(startDate, now);
             
-            for (Object[] count : counts) {
-                Object tierObj = count[0];
-                String tierStr = tierObj != null ? tierObj.toString() : "NOTLOYALTY";
-                Long discountCount = ((Number) count[1]).longValue();
-                
-                if (result.containsKey(tierStr)) {
-                    ((Map<String, Object>)result.get(tierStr)).put(periodName, discountCount);
+            Map<String, Long> discountCounts = new HashMap<>();
+            Map<String, Double> discountTotals = new HashMap<>();
+            for (DiscountCubeCellDTO cell : period.getValue()) {
+                if (cell.getLoyaltyDiscountLines() > 0) {
+                    discountCounts.merge(cell.getLoyaltyTier(), cell.getLoyaltyDiscountLines(), Long::sum);
+                    discountTotals.merge(cell.getLoyaltyTier(), cell.getLoyaltyDiscount(), Double::sum);
                 }
             }
             
+            discountCounts.forEach((tier, discountCount) -> {
+                if (tierCountsByTier.containsKey(tier)) {
+                    tierCountsByTier.get(tier).put(periodName, discountCount);
+                }
+            });
+            
             if (periodName.equals("lastYear")) {
-                List<Object[]> discounts = orderDetailsRepository.sumLoyaltyDiscountByTierInDateRange(startDate, now);
-                
-                for (Object[] discount : discounts) {
-                    Object tierObj = discount[0];
-                    if (tierObj != null) {
-                        String tierStr = tierObj.toString();
-                        Double totalDiscount = ((Number) discount[1]).doubleValue();
-                        
-                        String discountKey = tierStr.toLowerCase() + "totaldiscount";
-                        if (totalDiscountMap.containsKey(discountKey)) {
-                            totalDiscountMap.put(discountKey, totalDiscount);
-                        }
+                discountTotals.forEach((tier, totalDiscount) -> {
+                    String discountKey = tier.toLowerCase() + "totaldiscount";
+                    if (totalDiscountMap.containsKey(discountKey)) {
+                        totalDiscountMap.put(discountKey, totalDiscount);
                     }
-                }
+                });
             }
         }
         
         return result;
     }
 
-    // amount of item discount and top 3 items
-    public Map<String, Object> getItemDiscountAnalytics() {
-        LocalDateTime now = LocalDateTime.now();
-        Map<String, Object> result = new HashMap<>();
+    // amount of item discount and top N items
+    public Map<String, Object> getItemDiscountAnalytics(int top) {
+        return itemDiscountAnalytics(cellsByPeriod(LocalDateTime.now()), topItemCount(top));
+    }
+
+    private Map<String, Object> itemDiscountAnalytics(Map<String, List<DiscountCubeCellDTO>> cellsByPeriod, int top) {
+        Map<String, List<DiscountRank>> topItemsByPeriod = new LinkedHashMap<>();
+        Set<Long> itemIds = new HashSet<>();
+        
+        for (Map.Entry<String, List<DiscountCubeCellDTO>> period : cellsByPeriod.entrySet()) {
+            Map<Long, DiscountRank> items = new HashMap<>();
+            for (DiscountCubeCellDTO cell : period.getValue()) {
+                if (cell.getItemDiscountLines() > 0) {
+                    items.merge(cell.getItemId(), new DiscountRank(cell.getItemId(), cell.getItemDiscountAmount(),
+                        cell.getItemDiscount(), cell.getItemDiscountLines()), DiscountRank::plus);
+                }
+            }
+            
+            List<DiscountRank> topItems = topRanked(items.values(), top);
+            topItems.forEach(item -> itemIds.add(item.id()));
+            topItemsByPeriod.put(period.getKey(), topItems);
+        }
         
-        Map<String, LocalDateTime> timePeriods = new HashMap<>();
-        timePeriods.put("last24Hours", now.minusHours(24));
-        timePeriods.put("last7Days", now.minusDays(7));
-        timePeriods.put("last30Days", now.minusDays(30));
-        timePeriods.put("lastYear", now.minusYears(1));
+        // one lookup for the names of every period's top items
+        Map<Long, String> itemNames = itemIds.isEmpty()
+            ? Map.of()
+            : namesById(orderDetailsRepository.findNamesByIds(itemIds));
         
-        for (Map.Entry<String, LocalDateTime> period : timePeriods.entrySet()) {
-            String periodName = period.getKey();
-            LocalDateTime startDate = period.getValue();
-            
-            List<Object[]> itemAnalytics = orderDetailsRepository.findItemDiscountAnalyticsByDateRange(startDate, now);
-            
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<String, List<DiscountRank>> period : topItemsByPeriod.entrySet()) {
             double totalAmount = 0.0;
             double totalDiscount = 0.0;
             
             Map<String, Object> periodResult = new HashMap<>();
             
             List<Map<String, Object>> topItems = new ArrayList<>();
-            int count = 0;
-            for (Object[] item : itemAnalytics) {
-                if (count >= 3) break;
-                
-                Long itemId = (Long) item[0];
-                Double amount = ((Number) item[1]).doubleValue();
-                Double discount = ((Number) item[2]).doubleValue();
-                Long itemCount = ((Number) item[3]).longValue();
+            for (DiscountRank item : period.getValue()) {
+                String itemName = itemNames.getOrDefault(item.id(), "Unknown");
                 
-                String itemName = "Unknown"; 
-                Optional<String> nameOpt = orderDetailsRepository.findNameById(itemId);
-                if (nameOpt.isPresent()) {
-                    itemName = nameOpt.get();
-                }
-                
-                totalAmount += amount;
-                totalDiscount += discount;
+                totalAmount += item.amount();
+                totalDiscount += item.discount();
                 
                 Map<String, Object> itemMap = new HashMap<>();
-                itemMap.put("itemId", itemId);
+                itemMap.put("itemId", item.id());
                 itemMap.put("itemName", itemName);
-                itemMap.put("amount", amount);
-                itemMap.put("discount", discount);
-                itemMap.put("count", itemCount);
+                itemMap.put("amount", item.amount());
+                itemMap.put("discount", item.discount());
+                itemMap.put("count", item.count());
                 
                 topItems.add(itemMap);
-                count++;
             }
             
             periodResult.put("totalAmount", totalAmount);
             periodResult.put("totalDiscount", totalDiscount);
             periodResult.put("topItems", topItems);
             
-            result.put(periodName, periodResult);
+            result.put(period.getKey(), periodResult);
         }
         
         return result;
@@ -267,61 +269,61 @@ public class OrderDetailsService {
 
     // total category discount and top 3 categories
     public Map<String, Object> getCategoryDiscountAnalytics() {
-        LocalDateTime now = LocalDateTime.now();
-        Map<String, Object> result = new HashMap<>();
+        return categoryDiscountAnalytics(cellsByPeriod(LocalDateTime.now()));
+    }
+
+    private Map<String, Object> categoryDiscountAnalytics(Map<String, List<DiscountCubeCellDTO>> cellsByPeriod) {
+        Map<String, List<DiscountRank>> topCategoriesByPeriod = new LinkedHashMap<>();
+        Set<Long> categoryIds = new HashSet<>();
+        
+        for (Map.Entry<String, List<DiscountCubeCellDTO>> period : cellsByPeriod.entrySet()) {
+            Map<Long, DiscountRank> categories = new HashMap<>();
+            for (DiscountCubeCellDTO cell : period.getValue()) {
+                if (cell.getCategoryDiscountLines() > 0 && cell.getCategoryId() != DiscountAnalyticsBucket.NO_CATEGORY) {
+                    categories.merge(cell.getCategoryId(), new DiscountRank(cell.getCategoryId(), cell.getCategoryDiscountAmount(),
+                        cell.getCategoryDiscount(), cell.getCategoryDiscountLines()), DiscountRank::plus);
+                }
+            }
+            
+            List<DiscountRank> topCategories = topRanked(categories.values(), 3);
+            topCategories.forEach(category -> categoryIds.add(category.id()));
+            topCategoriesByPeriod.put(period.getKey(), topCategories);
+        }
         
-        Map<String, LocalDateTime> timePeriods = new HashMap<>();
-        timePeriods.put("last24Hours", now.minusHours(24));
-        timePeriods.put("last7Days", now.minusDays(7));
-        timePeriods.put("last30Days", now.minusDays(30));
-        timePeriods.put("lastYear", now.minusYears(1));
+        // one lookup for the names of every period's top categories
+        Map<Long, String> categoryNames = categoryIds.isEmpty()
+            ? Map.of()
+            : namesById(orderDetailsRepository.findCategoryNamesByIds(categoryIds));
         
-        for (Map.Entry<String, LocalDateTime> period : timePeriods.entrySet()) {
-            String periodName = period.getKey();
-            LocalDateTime startDate = period.getValue();
-            
-            List<Object[]> categoryAnalytics = orderDetailsRepository.findCategoryDiscountAnalyticsByDateRange(startDate, now);
-            
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<String, List<DiscountRank>> period : topCategoriesByPeriod.entrySet()) {
             double totalAmount = 0.0;
             double totalDiscount = 0.0;
             
             Map<String, Object> periodResult = new HashMap<>();
             
             List<Map<String, Object>> topCategories = new ArrayList<>();
-            int count = 0;
-            for (Object[] category : categoryAnalytics) {
-                if (count >= 3) break;
-                
-                Long categoryId = (Long) category[0];
-                Double amount = ((Number) category[1]).doubleValue();
-                Double discount = ((Number) category[2]).doubleValue();
-                Long categoryCount = ((Number) category[3]).longValue();
-               
-                String categoryName = "Unknown";
-                Optional<String> nameOpt = orderDetailsRepository.findCategoryNameById(categoryId);
-                if (nameOpt.isPresent()) {
-                    categoryName = nameOpt.get();
-                }
+            for (DiscountRank category : period.getValue()) {
+                String categoryName = categoryNames.getOrDefault(category.id(), "Unknown");
                 
-                totalAmount += amount;
-                totalDiscount += discount;
+                totalAmount += category.amount();
+                totalDiscount += category.discount();
                 
                 Map<String, Object> categoryMap = new HashMap<>();
-                categoryMap.put("categoryId", categoryId);
+                categoryMap.put("categoryId", category.id());
                 categoryMap.put("categoryName", categoryName);
-                categoryMap.put("amount", amount);
-                categoryMap.put("discount", discount);
-                categoryMap.put("count", categoryCount);
+                categoryMap.put("amount", category.amount());
+                categoryMap.put("discount", category.discount());
+                categoryMap.put("count", category.count());
                 
                 topCategories.add(categoryMap);
-                count++;
             }
             
             periodResult.put("totalAmount", totalAmount);
             periodResult.put("totalDiscount", totalDiscount);
             periodResult.put("topCategories", topCategories);
             
-            result.put(periodName, periodResult);
+            result.put(period.getKey(), periodResult);
         }
         
         return result;
@@ -329,48 +331,30 @@ public class OrderDetailsService {
 
     // get total discount
     public Map<String, Object> getAllDiscountTotals() {
-        LocalDateTime now = LocalDateTime.now();
+        return discountTotals(cellsByPeriod(LocalDateTime.now()));
+    }
+
+    private Map<String, Object> discountTotals(Map<String, List<DiscountCubeCellDTO>> cellsByPeriod) {
         Map<String, Object> result = new HashMap<>();
         
-        Map<String, LocalDateTime> timePeriods = new HashMap<>();
-        timePeriods.put("last24Hours", now.minusHours(24));
-        timePeriods.put("last7Days", now.minusDays(7));
-        timePeriods.put("last30Days", now.minusDays(30));
-        timePeriods.put("lastYear", now.minusYears(1));
-        
-        for (String period : timePeriods.keySet()) {
-            Map<String, Double> periodTotals = new HashMap<>();
-            periodTotals.put("loyaltyDiscount", 0.0);
-            periodTotals.put("itemDiscount", 0.0);
-            periodTotals.put("categoryDiscount", 0.0);
-            periodTotals.put("totalDiscount", 0.0);
-            result.put(period, periodTotals);
-        }
-        
-        for (Map.Entry<String, LocalDateTime> period : timePeriods.entrySet()) {
-            String periodName = period.getKey();
-            LocalDateTime startDate = period.getValue();
-            Map<String, Double> periodTotals = (Map<String, Double>) result.get(periodName);
-            
-            Double loyaltyDiscount = orderDetailsRepository.sumLoyaltyDiscountInDateRange(startDate, now);
-            if (loyaltyDiscount != null) {
-                periodTotals.put("loyaltyDiscount", loyaltyDiscount);
-            }
-            
-            Double itemDiscount = orderDetailsRepository.sumItemDiscountInDateRange(startDate, now);
-            if (itemDiscount != null) {
-                periodTotals.put("itemDiscount", itemDiscount);
-            }
-            
-            Double categoryDiscount = orderDetailsRepository.sumCategoryDiscountInDateRange(startDate, now);
-            if (categoryDiscount != null) {
-                periodTotals.put("categoryDiscount", categoryDiscount);
+        for (Map.Entry<String, List<DiscountCubeCellDTO>> period : cellsByPeriod.entrySet()) {
+            double loyaltyDiscount = 0.0;
+            double itemDiscount = 0.0;
+            double categoryDiscount = 0.0;
+            double totalDiscount = 0.0;
+            for (DiscountCubeCellDTO cell : period.getValue()) {
+                loyaltyDiscount += cell.getLoyaltyDiscount();
+                itemDiscount += cell.getItemDiscount();
+                categoryDiscount += cell.getCategoryDiscount();
+                totalDiscount += cell.getTotalDiscount();
             }
             
-            Double totalDiscount = orderDetailsRepository.sumTotalDiscountInDateRange(startDate, now);
-            if (totalDiscount != null) {
-                periodTotals.put("totalDiscount", totalDiscount);
-            }
+            Map<String, Double> periodTotals = new HashMap<>();
+            periodTotals.put("loyaltyDiscount", loyaltyDiscount);
+            periodTotals.put("itemDiscount", itemDiscount);
+            periodTotals.put("categoryDiscount", categoryDiscount);
+            periodTotals.put("totalDiscount", totalDiscount);
+            result.put(period.getKey(), periodTotals);
         }
         
         return result;
@@ -378,70 +362,148 @@ public class OrderDetailsService {
 
     // add total amounts 
     public Map<String, Object> getOrderSummaryMetrics() {
-        LocalDateTime now = LocalDateTime.now();
+        return orderSummaryMetrics(cellsByPeriod(LocalDateTime.now()));
+    }
+
+    private Map<String, Object> orderSummaryMetrics(Map<String, List<DiscountCubeCellDTO>> cellsByPeriod) {
         Map<String, Object> result = new HashMap<>();
         
-        Map<String, LocalDateTime> timePeriods = new HashMap<>();
-        timePeriods.put("last24Hours", now.minusHours(24));
-        timePeriods.put("last7Days", now.minusDays(7));
-        timePeriods.put("last30Days", now.minusDays(30));
-        timePeriods.put("lastYear", now.minusYears(1));
-        
-        for (Map.Entry<String, LocalDateTime> period : timePeriods.entrySet()) {
-            String periodName = period.getKey();
-            LocalDateTime startDate = period.getValue();
+        for (Map.Entry<String, List<DiscountCubeCellDTO>> period : cellsByPeriod.entrySet()) {
+            double totalPointsEarned = 0.0;
+            double totalAmount = 0.0;
+            double totalLoyaltyAmount = 0.0;
+            double totalItemAmount = 0.0;
+            double totalCategoryAmount = 0.0;
+            for (DiscountCubeCellDTO cell : period.getValue()) {
+                totalPointsEarned += cell.getPointsEarned();
+                totalAmount += cell.getAmount();
+                totalLoyaltyAmount += cell.getLoyaltyDiscountAmount();
+                totalItemAmount += cell.getItemDiscountAmount();
+                totalCategoryAmount += cell.getCategoryDiscountAmount();
+            }
             
             Map<String, Object> periodMetrics = new HashMap<>();
-            
-            Double totalPointsEarned = orderDetailsRepository.sumPointsEarnedInDateRange(startDate, now);
-            periodMetrics.put("totalPointsEarned", totalPointsEarned != null ? totalPointsEarned : 0.0);
-            
-            Double totalAmount = orderDetailsRepository.sumTotalAmountInDateRange(startDate, now);
-            periodMetrics.put("totalAmount", totalAmount != null ? totalAmount : 0.0);
-            
-            Double totalLoyaltyAmount = orderDetailsRepository.sumAmountWithLoyaltyDiscountInDateRange(startDate, now);
-            periodMetrics.put("totalLoyaltyAmount", totalLoyaltyAmount != null ? totalLoyaltyAmount : 0.0);
-            
-            Double totalItemAmount = orderDetailsRepository.sumAmountWithItemDiscountInDateRange(startDate, now);
-            periodMetrics.put("totalItemAmount", totalItemAmount != null ? totalItemAmount : 0.0);
-            
-            Double totalCategoryAmount = orderDetailsRepository.sumAmountWithCategoryDiscountInDateRange(startDate, now);
-            periodMetrics.put("totalCategoryAmount", totalCategoryAmount != null ? totalCategoryAmount : 0.0);
-            
-            result.put(periodName, periodMetrics);
+            periodMetrics.put("totalPointsEarned", totalPointsEarned);
+            periodMetrics.put("totalAmount", totalAmount);
+            periodMetrics.put("totalLoyaltyAmount", totalLoyaltyAmount);
+            periodMetrics.put("totalItemAmount", totalItemAmount);
+            periodMetrics.put("totalCategoryAmount", totalCategoryAmount);
+            result.put(period.getKey(), periodMetrics);
         }
         
         return result;
     }
 
+    /**
+     * Everything the discount analytics page shows, as of the given time. The cube is read once
+     * per period and shared by all the figures instead of once per figure.
+     */
+    public Map<String, Object> getAnalyticsSnapshot(LocalDateTime now) {
+        Map<String, List<DiscountCubeCellDTO>> cellsByPeriod = cellsByPeriod(now);
+        
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("asOf", now);
+        snapshot.put("orderCounts", orderCounts(cellsByPeriod));
+        snapshot.put("discountCountsByType", discountCountsByType(cellsByPeriod));
+        snapshot.put("customerCountsByTier", customerCountsByTier(now, false));
+        snapshot.put("loyaltyDiscountsByTier", loyaltyDiscountDataByTier(cellsByPeriod));
+        snapshot.put("itemDiscountAnalytics", itemDiscountAnalytics(cellsByPeriod, DEFAULT_TOP_ITEMS));
+        snapshot.put("categoryDiscountAnalytics", categoryDiscountAnalytics(cellsByPeriod));
+        snapshot.put("discountTotals", discountTotals(cellsByPeriod));
+        snapshot.put("orderSummaryMetrics", orderSummaryMetrics(cellsByPeriod));
+        return snapshot;
+    }
+
+    // cube cells of every dashboard period, fetched in parallel
+    private Map<String, List<DiscountCubeCellDTO>> cellsByPeriod(LocalDateTime now) {
+        Map<String, Callable<List<DiscountCubeCellDTO>>> queries = new LinkedHashMap<>();
+        timePeriods(now).forEach((period, startDate) ->
+            queries.put(period, () -> discountAnalyticsCubeService.getCellsSince(startDate)));
+        return dashboardQueryExecutor.runAll(queries);
+    }
+
+    private Map<String, LocalDateTime> timePeriods(LocalDateTime now) {
+        Map<String, LocalDateTime> timePeriods = new LinkedHashMap<>();
+        timePeriods.put("last24Hours", now.minusHours(24));
+        timePeriods.put("last7Days", now.minusDays(7));
+        timePeriods.put("last30Days", now.minusDays(30));
+        timePeriods.put("lastYear", now.minusYears(1));
+        return timePeriods;
+    }
+
+    // one map per loyalty tier, with a zero count for every period
+    private Map<String, Map<String, Object>> tierPeriodMaps(Set<String> periods) {
+        Map<String, Map<String, Object>> tierCounts = new HashMap<>();
+        for (String tier : new String[]{"GOLD", "SILVER", "BRONZE", "NOTLOYALTY"}) {
+            Map<String, Object> counts = new HashMap<>();
+            for (String period : periods) {
+                counts.put(period, 0L);
+            }
+            tierCounts.put(tier, counts);
+        }
+        return tierCounts;
+    }
+
+    private Map<Long, String> namesById(List<Object[]> rows) {
+        Map<Long, String> names = new HashMap<>();
+        for (Object[] row : rows) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+        return names;
+    }
+
+    private int topItemCount(int top) {
+        return Math.max(1, Math.min(top, MAX_TOP_ITEMS));
+    }
+
+    // most discounted first, ties broken by id so the order is stable
+    private static final Comparator<DiscountRank> RANK_ORDER =
+        Comparator.comparingLong(DiscountRank::count).reversed().thenComparing(DiscountRank::id);
+
+    // the n best ranks, picked with a heap of n entries instead of sorting them all
+    private List<DiscountRank> topRanked(Collection<DiscountRank> ranks, int n) {
+        PriorityQueue<DiscountRank> best = new PriorityQueue<>(n + 1, RANK_ORDER.reversed());
+        for (DiscountRank rank : ranks) {
+            best.add(rank);
+            if (best.size() > n) {
+                best.poll();
+            }
+        }
+        List<DiscountRank> top = new ArrayList<>(best);
+        top.sort(RANK_ORDER);
+        return top;
+    }
+
     // Add these methods to OrderDetailsService.java
 
-public Map<String, Long> getOrderCountsByCustomRange(LocalDateTime startDate, LocalDateTime endDate) {
+@Transactional(readOnly = true)
+public Map<String, Long> getOrderCountsByCustomRange(LocalDateTime startDate, LocalDateTime endDate, boolean exact) {
     Map<String, Long> result = new HashMap<>();
-    result.put("totalOrders", orderDetailsRepository.countOrdersByDateRange(startDate, endDate));
+    result.put("totalOrders", exact
+        ? orderDetailsRepository.countOrdersByDateRange(startDate, endDate)
+        : distinctCountSketchService.estimateOrders(startDate, endDate));
     return result;
 }
 
+@Transactional(readOnly = true)
 public Map<String, Map<String, Long>> getDiscountCountsByTypeForCustomRange(LocalDateTime startDate, LocalDateTime endDate) {
     Map<String, Map<String, Long>> result = new HashMap<>();
     
+    DiscountTotalsDTO totals = discountPrefixSumService.getTotals(startDate, endDate);
     Map<String, Long> discountCounts = new HashMap<>();
-    discountCounts.put("ITEM", orderDetailsRepository.countItemDiscountsByDateRange(startDate, endDate));
-    discountCounts.put("CATEGORY", orderDetailsRepository.countCategoryDiscountsByDateRange(startDate, endDate));
-    discountCounts.put("LOYALTY", orderDetailsRepository.countLoyaltyDiscountsByDateRange(startDate, endDate));
+    discountCounts.put("ITEM", totals.getItemDiscountLines());
+    discountCounts.put("CATEGORY", totals.getCategoryDiscountLines());
+    discountCounts.put("LOYALTY", totals.getLoyaltyDiscountLines());
     
     result.put("discountCounts", discountCounts);
     return result;
 }
 
-public Map<String, Object> getCustomerCountsByTierForCustomRange(LocalDateTime startDate, LocalDateTime endDate) {
+@Transactional(readOnly = true)
+public Map<String, Object> getCustomerCountsByTierForCustomRange(LocalDateTime startDate, LocalDateTime endDate, boolean exact) {
     Map<String, Object> result = new HashMap<>();
     
-    List<Object[]> counts = orderDetailsRepository.countCustomersByTierInDateRange(startDate, endDate);
-    for (Object[] count : counts) {
-        String tier = count[0] != null ? count[0].toString() : "NOTLOYALTY";
-        result.put(tier.toLowerCase(), ((Number) count[1]).longValue());
-    }
+    customerCountsByTier(startDate, endDate, exact).forEach((tier, count) -> result.put(tier.toLowerCase(), count));
     
     return result;
 }
@@ -449,14 +511,17 @@ public Map<String, Object> getCustomerCountsByTierForCustomRange(LocalDateTime s
 public Map<String, Object> getLoyaltyDiscountDataByTierForCustomRange(LocalDateTime startDate, LocalDateTime endDate) {
     Map<String, Object> result = new HashMap<>();
     
-    List<Object[]> counts = orderDetailsRepository.countLoyaltyDiscountsByTierAndDateRange(startDate, endDate);
-    for (Object[] count : counts) {
+    Map<String, Callable<List<Object[]>>> queries = new LinkedHashMap<>();
+    queries.put("counts", () -> orderDetailsRepository.countLoyaltyDiscountsByTierAndDateRange(startDate, endDate));
+    queries.put("discounts", () -> orderDetailsRepository.sumLoyaltyDiscountByTierInDateRange(startDate, endDate));
+    Map<String, List<Object[]>> queryResults = dashboardQueryExecutor.runAll(queries);
+    
+    for (Object[] count : queryResults.get("counts")) {
         String tier = count[0] != null ? count[0].toString() : "NOTLOYALTY";
         result.put(tier.toLowerCase() + "Count", ((Number) count[1]).longValue());
     }
     
-    List<Object[]> discounts = orderDetailsRepository.sumLoyaltyDiscountByTierInDateRange(startDate, endDate);
-    for (Object[] discount : discounts) {
+    for (Object[] discount : queryResults.get("discounts")) {
         String tier = discount[0] != null ? discount[0].toString() : "NOTLOYALTY";
         result.put(tier.toLowerCase() + "Discount", ((Number) discount[1]).doubleValue());
     }
@@ -464,36 +529,40 @@ public Map<String, Object> getLoyaltyDiscountDataByTierForCustomRange(LocalDateT
     return result;
 }
 
-public Map<String, Object> getItemDiscountAnalyticsForCustomRange(LocalDateTime startDate, LocalDateTime endDate) {
+public Map<String, Object> getItemDiscountAnalyticsForCustomRange(LocalDateTime startDate, LocalDateTime endDate, Integer top) {
     Map<String, Object> result = new HashMap<>();
     
-    List<Object[]> itemAnalytics = orderDetailsRepository.findTopItemDiscountsByDateRange(startDate, endDate);
-    List<Map<String, Object>> topItems = new ArrayList<>();
+    // without a top N every discounted item is listed, as before
+    Limit limit = top != null ? Limit.of(topItemCount(top)) : Limit.unlimited();
     
-    double totalAmount = 0.0;
-    double totalDiscount = 0.0;
+    DashboardQueryExecutor.Batch batch = dashboardQueryExecutor.batch();
+    Supplier<List<Object[]>> items = batch.add(() -> orderDetailsRepository.findTopItemDiscountsByDateRange(startDate, endDate, limit));
+    Supplier<DiscountTotalsDTO> itemTotals = batch.add(() -> discountPrefixSumService.getTotals(startDate, endDate));
+    batch.join();
+    
+    List<Object[]> itemAnalytics = items.get();
+    List<Map<String, Object>> topItems = new ArrayList<>();
     
     for (Object[] item : itemAnalytics) {
         Map<String, Object> itemMap = new HashMap<>();
         itemMap.put("itemId", item[0]);
-        itemMap.put("itemName", item[1]);
+        itemMap.put("itemName", item[1] != null ? item[1] : "Unknown");
         itemMap.put("amount", ((Number) item[2]).doubleValue());
         itemMap.put("discount", ((Number) item[3]).doubleValue());
         itemMap.put("count", ((Number) item[4]).longValue());
         
-        totalAmount += ((Number) item[2]).doubleValue();
-        totalDiscount += ((Number) item[3]).doubleValue();
-        
         topItems.add(itemMap);
     }
     
-    result.put("totalAmount", totalAmount);
-    result.put("totalDiscount", totalDiscount);
+    DiscountTotalsDTO totals = itemTotals.get();
+    result.put("totalAmount", totals.getItemDiscountAmount());
+    result.put("totalDiscount", totals.getItemDiscount());
     result.put("topItems", topItems);
     
     return result;
 }
 
+@Transactional(readOnly = true)
 public Map<String, Object> getCategoryDiscountAnalyticsForCustomRange(LocalDateTime startDate, LocalDateTime endDate) {
     Map<String, Object> result = new HashMap<>();
     
@@ -506,7 +575,7 @@ public Map<String, Object> getCategoryDiscountAnalyticsForCustomRange(LocalDateT
     for (Object[] category : categoryAnalytics) {
         Map<String, Object> categoryMap = new HashMap<>();
         categoryMap.put("categoryId", category[0]);
-        categoryMap.put("categoryName", category[1]);
+        categoryMap.put("categoryName", category[1] != null ? category[1] : "Unknown");
         categoryMap.put("amount", ((Number) category[2]).doubleValue());
         categoryMap.put("discount", ((Number) category[3]).doubleValue());
         categoryMap.put("count", ((Number) category[4]).longValue());
@@ -524,42 +593,29 @@ public Map<String, Object> getCategoryDiscountAnalyticsForCustomRange(LocalDateT
     return result;
 }
 
+@Transactional(readOnly = true)
 public Map<String, Object> getAllDiscountTotalsForCustomRange(LocalDateTime startDate, LocalDateTime endDate) {
     Map<String, Object> result = new HashMap<>();
     
-    Double totalDiscount = orderDetailsRepository.sumTotalDiscountByDateRange(startDate, endDate);
-    Double itemDiscount = orderDetailsRepository.sumItemDiscountByDateRange(startDate, endDate);
-    Double categoryDiscount = orderDetailsRepository.sumCategoryDiscountByDateRange(startDate, endDate);
-    Double loyaltyDiscount = orderDetailsRepository.sumLoyaltyDiscountByDateRange(startDate, endDate);
-    
-    result.put("totalDiscount", totalDiscount != null ? totalDiscount : 0.0);
-    result.put("itemDiscount", itemDiscount != null ? itemDiscount : 0.0);
-    result.put("categoryDiscount", categoryDiscount != null ? categoryDiscount : 0.0);
-    result.put("loyaltyDiscount", loyaltyDiscount != null ? loyaltyDiscount : 0.0);
+    DiscountTotalsDTO totals = discountPrefixSumService.getTotals(startDate, endDate);
+    result.put("totalDiscount", totals.getTotalDiscount());
+    result.put("itemDiscount", totals.getItemDiscount());
+    result.put("categoryDiscount", totals.getCategoryDiscount());
+    result.put("loyaltyDiscount", totals.getLoyaltyDiscount());
     
     return result;
 }
 
+@Transactional(readOnly = true)
 public Map<String, Object> getOrderSummaryMetricsForCustomRange(LocalDateTime startDate, LocalDateTime endDate) {
     Map<String, Object> result = new HashMap<>();
     
-    List<Object[]> amountAndPoints = orderDetailsRepository.sumAmountAndPointsByDateRange(startDate, endDate);
-    if (!amountAndPoints.isEmpty()) {
-        Object[] data = amountAndPoints.get(0);
-        result.put("totalAmount", ((Number) data[0]).doubleValue());
-        result.put("totalPointsEarned", ((Number) data[1]).doubleValue());
-    } else {
-        result.put("totalAmount", 0.0);
-        result.put("totalPointsEarned", 0.0);
-    }
-    
-    Double totalLoyaltyAmount = orderDetailsRepository.sumAmountWithLoyaltyDiscountInDateRange(startDate, endDate);
-    Double totalItemAmount = orderDetailsRepository.sumAmountWithItemDiscountInDateRange(startDate, endDate);
-    Double totalCategoryAmount = orderDetailsRepository.sumAmountWithCategoryDiscountInDateRange(startDate, endDate);
-    
-    result.put("totalLoyaltyAmount", totalLoyaltyAmount != null ? totalLoyaltyAmount : 0.0);
-    result.put("totalItemAmount", totalItemAmount != null ? totalItemAmount : 0.0);
-    result.put("totalCategoryAmount", totalCategoryAmount != null ? totalCategoryAmount : 0.0);
+    DiscountTotalsDTO totals = discountPrefixSumService.getTotals(startDate, endDate);
+    result.put("totalAmount", totals.getAmount());
+    result.put("totalPointsEarned", totals.getPointsEarned());
+    result.put("totalLoyaltyAmount", totals.getLoyaltyDiscountAmount());
+    result.put("totalItemAmount", totals.getItemDiscountAmount());
+    result.put("totalCategoryAmount", totals.getCategoryDiscountAmount());
     
     return result;
 }
@@ -0,0 +1,15 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.entity.Order;
+
+import java.util.List;
+
+/**
+ * A read model kept in step with saved orders. {@link OrderService} hands every implementation
+ * the orders it saves, inside the saving transaction and always in the same bean order, so the
+ * rows they lock are taken in the same order by concurrent checkouts.
+ */
+public interface OrderRecorder {
+
+    void recordOrders(List<Order> orders);
+}
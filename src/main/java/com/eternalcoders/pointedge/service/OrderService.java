@@ -1,39 +1,78 @@
 package com.eternalcoders.pointedge.service;
 
+import com.eternalcoders.pointedge.dto.BasketPricingDTO;
+import com.eternalcoders.pointedge.dto.CheckoutRequestDTO;
+import com.eternalcoders.pointedge.dto.OrderBatchResultDTO;
+import com.eternalcoders.pointedge.dto.OrderCursorPageDTO;
+import com.eternalcoders.pointedge.dto.OrderLineDTO;
+import com.eternalcoders.pointedge.dto.OrderItemDTO;
 import com.eternalcoders.pointedge.dto.OrderRequestDTO;
 import com.eternalcoders.pointedge.dto.OrderStatsDTO;
+import com.eternalcoders.pointedge.dto.OrderSummaryDTO;
 import com.eternalcoders.pointedge.dto.ProductOrderQuantityDTO;
+import com.eternalcoders.pointedge.entity.Customer;
+import com.eternalcoders.pointedge.entity.Invoice;
 import com.eternalcoders.pointedge.entity.Order;
 import com.eternalcoders.pointedge.entity.OrderItem;
+import com.eternalcoders.pointedge.entity.Product;
 import com.eternalcoders.pointedge.exception.InsufficientStockException;
+import com.eternalcoders.pointedge.exception.InvalidPaymentException;
+import com.eternalcoders.pointedge.exception.ResourceNotFoundException;
+import com.eternalcoders.pointedge.repository.CustomerRepository;
 import com.eternalcoders.pointedge.repository.OrderItemRepository;
 import com.eternalcoders.pointedge.repository.OrderRepository;
 import com.eternalcoders.pointedge.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
+    // Orders are flushed and detached in chunks of this size during batch uploads
+    private static final int BATCH_CHUNK_SIZE = 50;
+    private static final int MAX_ORDER_PAGE_SIZE = 100;
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
     private final InvoiceService invoiceService;
+    private final DiscountService discountService;
+    private final CustomerRepository customerRepository;
+    private final OrderStatsRollupService orderStatsRollupService;
+    private final List<OrderRecorder> orderRecorders;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository, ProductRepository productRepository, InvoiceService invoiceService) {
+    public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository, ProductRepository productRepository, InvoiceService invoiceService, DiscountService discountService, CustomerRepository customerRepository, OrderStatsRollupService orderStatsRollupService, List<OrderRecorder> orderRecorders) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.productRepository = productRepository;
         this.invoiceService = invoiceService;
+        this.discountService = discountService;
+        this.customerRepository = customerRepository;
+        this.orderStatsRollupService = orderStatsRollupService;
+        this.orderRecorders = orderRecorders;
     }
 
     public Order getOrderById(Long id) {
@@ -57,7 +96,57 @@ public class OrderService {
             }
             item.setOrder(order);
         }
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        recordSaved(List.of(savedOrder));
+        return savedOrder;
+    }
+
+    @Transactional(readOnly = true)
+    public OrderCursorPageDTO getOrderPage(
+            LocalDateTime cursorDate,
+            Long cursorId,
+            Long employeeId,
+            String customerName,
+            String cashierName,
+            LocalDate startDate,
+            LocalDate endDate,
+            int size,
+            boolean includeItems) {
+        int pageSize = Math.max(1, Math.min(size, MAX_ORDER_PAGE_SIZE));
+        if (cursorDate != null && cursorId == null) {
+            cursorId = Long.MAX_VALUE;
+        }
+
+        // Fetch one extra row to know whether another page follows
+        List<OrderSummaryDTO> orders = new ArrayList<>(orderRepository.findOrderSummariesBefore(
+                cursorDate,
+                cursorId,
+                employeeId,
+                customerName == null || customerName.isBlank() ? null : customerName,
+                cashierName == null || cashierName.isBlank() ? null : cashierName,
+                startDate != null ? startDate.atStartOfDay() : null,
+                endDate != null ? endDate.plusDays(1).atStartOfDay() : null,
+                Limit.of(pageSize + 1)
+        ));
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders.remove(pageSize);
+        }
+
+        if (includeItems && !orders.isEmpty()) {
+            Map<Long, List<OrderLineDTO>> linesByOrder = orderRepository.findOrderLines(
+                    orders.stream().map(OrderSummaryDTO::getId).toList()
+            ).stream().collect(Collectors.groupingBy(OrderLineDTO::getOrderId));
+            orders.forEach(order -> order.setItems(linesByOrder.getOrDefault(order.getId(), List.of())));
+        }
+
+        OrderSummaryDTO last = hasMore ? orders.get(orders.size() - 1) : null;
+        return new OrderCursorPageDTO(
+                orders,
+                last != null ? last.getOrderDate() : null,
+                last != null ? last.getId() : null,
+                hasMore
+        );
     }
 
     public Page<ProductOrderQuantityDTO> getTotalOrdersForProducts(
@@ -87,18 +176,7 @@ public class OrderService {
 
     @Transactional
     public Map<String, Object> createOrderWithInvoice(OrderRequestDTO dto) {
-        var order = new Order();
-        order.setCustomerName(dto.getCustomerName());
-        order.setCustomerPhone(dto.getCustomerPhone());
-        order.setLoyaltyPoints(dto.getLoyaltyPoints());
-        order.setDiscountCode(dto.getDiscountCode());
-        order.setAmount(dto.getAmount());
-        order.setTotalDiscount(dto.getTotalDiscount());
-        order.setTotal(dto.getTotal());
-        order.setEmployeeId(dto.getEmployeeId());
-        order.setCashierName(dto.getCashierName());
-        order.setCashAmount(dto.getCashAmount());
-        order.setCardAmount(dto.getCardAmount());
+        var order = buildOrder(dto);
 
         List<OrderItem> items = new ArrayList<>();
         for (var itemDTO : dto.getItems()) {
@@ -129,7 +207,115 @@ public class OrderService {
         order.setOrderItems(items);
 
         Order savedOrder = orderRepository.save(order);
+        recordSaved(List.of(savedOrder));
+
+        var savedInvoice = invoiceService.createInvoiceFromOrder(savedOrder);
+
+        Long totalOrderCount = orderRepository.countTotalOrdersByEmployee(savedOrder.getEmployeeId());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("orderId", savedOrder.getId());
+        response.put("invoiceNumber", savedInvoice.getInvoiceNumber());
+        response.put("totalOrdersByEmployee", totalOrderCount);
+
+        return response;
+    }
+
+    /**
+     * Server-priced checkout. The basket is priced, discounts and points included, from the same
+     * locked product rows used to reserve stock, the cash/card split is checked against that total,
+     * and the order, its order details and its invoice are written in one transaction.
+     */
+    @Transactional
+    public Map<String, Object> checkout(CheckoutRequestDTO dto) {
+        if (dto.getItems() == null || dto.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Order has no items");
+        }
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (var itemDTO : dto.getItems()) {
+            if (itemDTO.getQuantity() <= 0) {
+                throw new IllegalArgumentException(
+                        "Invalid quantity " + itemDTO.getQuantity() + " for product ID: " + itemDTO.getProductId()
+                );
+            }
+            quantities.merge(itemDTO.getProductId(), itemDTO.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Product> products = productRepository.findAllByIdForUpdate(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (product == null) {
+                throw new ResourceNotFoundException("Product not found with ID: " + entry.getKey());
+            }
+            if (product.getStockQuantity() < entry.getValue()) {
+                throw new InsufficientStockException(
+                        "Cannot order " + entry.getValue()
+                                + " of product " + product.getName()
+                                + " (only " + product.getStockQuantity() + " left)"
+                );
+            }
+        }
+
+        Customer customer = dto.getCustomerPhone() == null || dto.getCustomerPhone().isBlank()
+                ? null
+                : customerRepository.findByPhone(dto.getCustomerPhone()).orElse(null);
+        BasketPricingDTO pricing = discountService.priceBasket(customer, quantities, products);
+
+        BigDecimal total = pricing.getTotal().setScale(2, RoundingMode.HALF_UP);
+        BigDecimal cashAmount = dto.getCashAmount() != null ? dto.getCashAmount() : BigDecimal.ZERO;
+        BigDecimal cardAmount = dto.getCardAmount() != null ? dto.getCardAmount() : BigDecimal.ZERO;
+        if (cashAmount.signum() < 0 || cardAmount.signum() < 0) {
+            throw new InvalidPaymentException("Payment amounts cannot be negative");
+        }
+        if (cardAmount.compareTo(total) > 0) {
+            throw new InvalidPaymentException("Card amount " + cardAmount + " exceeds order total " + total);
+        }
+        if (cashAmount.add(cardAmount).compareTo(total) < 0) {
+            throw new InvalidPaymentException(
+                    "Payment of " + cashAmount.add(cardAmount) + " does not cover order total " + total
+            );
+        }
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            int updated = productRepository.reduceStock(entry.getKey(), entry.getValue());
+            if (updated == 0) {
+                throw new InsufficientStockException(
+                        "Cannot order " + entry.getValue() + " of product " + products.get(entry.getKey()).getName()
+                );
+            }
+        }
+
+        var order = new Order();
+        order.setCustomerName(customer != null ? String.valueOf(customer.getName()) : dto.getCustomerName());
+        order.setCustomerPhone(dto.getCustomerPhone());
+        order.setLoyaltyPoints((int) Math.round(pricing.getEarnedPoints()));
+        order.setDiscountCode(dto.getDiscountCode());
+        order.setAmount(pricing.getSubtotal().doubleValue());
+        order.setTotalDiscount(pricing.getTotalDiscount().doubleValue());
+        order.setTotal(total.doubleValue());
+        order.setEmployeeId(dto.getEmployeeId());
+        order.setCashierName(dto.getCashierName());
+        order.setCashAmount(cashAmount);
+        order.setCardAmount(cardAmount);
 
+        List<OrderItem> items = new ArrayList<>();
+        for (BasketPricingDTO.Line line : pricing.getLines()) {
+            var oi = new OrderItem();
+            oi.setProduct(products.get(line.getProductId()));
+            oi.setQuantity(line.getQuantity());
+            oi.setPricePerUnit(line.getUnitPrice().doubleValue());
+            oi.setOrder(order);
+            items.add(oi);
+        }
+        order.setOrderItems(items);
+
+        Order savedOrder = orderRepository.save(order);
+        recordSaved(List.of(savedOrder));
+        if (customer != null) {
+            discountService.recordCheckout(customer, "ORD-" + savedOrder.getId(), pricing);
+        }
         var savedInvoice = invoiceService.createInvoiceFromOrder(savedOrder);
 
         Long totalOrderCount = orderRepository.countTotalOrdersByEmployee(savedOrder.getEmployeeId());
@@ -138,26 +324,172 @@ public class OrderService {
         response.put("orderId", savedOrder.getId());
         response.put("invoiceNumber", savedInvoice.getInvoiceNumber());
         response.put("totalOrdersByEmployee", totalOrderCount);
+        response.put("pricing", pricing);
+        response.put("change", cashAmount.add(cardAmount).subtract(total));
 
         return response;
     }
 
+    /**
+     * Replays a batch of orders queued by a till while it was offline.
+     * Products are loaded and locked once for the whole batch, stock is checked against that
+     * snapshot in upload order and reduced with one update per product. Orders that cannot be
+     * fulfilled are rejected individually; the rest are inserted together with their invoices.
+     */
+    @Transactional
+    public List<OrderBatchResultDTO> createOrdersInBatch(List<OrderRequestDTO> dtos) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(BATCH_CHUNK_SIZE);
+
+        Set<Long> productIds = dtos.stream()
+                .filter(dto -> dto.getItems() != null)
+                .flatMap(dto -> dto.getItems().stream())
+                .map(OrderItemDTO::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllByIdForUpdate(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Map<Long, Long> remainingStock = new HashMap<>();
+        products.values().forEach(product -> remainingStock.put(product.getId(), product.getStockQuantity()));
+        Map<Long, Long> reservedStock = new HashMap<>();
+
+        OrderBatchResultDTO[] results = new OrderBatchResultDTO[dtos.size()];
+        List<Order> acceptedOrders = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            OrderRequestDTO dto = dtos.get(i);
+            String error = reserveBatchStock(dto, products, remainingStock);
+            if (error != null) {
+                results[i] = new OrderBatchResultDTO(i, false, null, null, null, error);
+                continue;
+            }
+
+            Order order = buildOrder(dto);
+            List<OrderItem> items = new ArrayList<>();
+            for (var itemDTO : dto.getItems()) {
+                var oi = new OrderItem();
+                oi.setProduct(products.get(itemDTO.getProductId()));
+                oi.setQuantity(itemDTO.getQuantity());
+                oi.setPricePerUnit(itemDTO.getPricePerUnit());
+                oi.setOrder(order);
+                items.add(oi);
+                reservedStock.merge(itemDTO.getProductId(), (long) itemDTO.getQuantity(), Long::sum);
+            }
+            order.setOrderItems(items);
+            acceptedOrders.add(order);
+            acceptedIndexes.add(i);
+        }
+
+        for (Map.Entry<Long, Long> reservation : reservedStock.entrySet()) {
+            int updated = productRepository.reduceStock(reservation.getKey(), reservation.getValue());
+            if (updated == 0) {
+                throw new InsufficientStockException(
+                        "Cannot reserve " + reservation.getValue()
+                                + " of product " + products.get(reservation.getKey()).getName()
+                );
+            }
+        }
+
+        Set<Long> employeeIds = new HashSet<>();
+        for (int start = 0; start < acceptedOrders.size(); start += BATCH_CHUNK_SIZE) {
+            List<Order> chunk = acceptedOrders.subList(start, Math.min(start + BATCH_CHUNK_SIZE, acceptedOrders.size()));
+            List<Order> savedOrders = orderRepository.saveAll(chunk);
+            List<Invoice> savedInvoices = invoiceService.createInvoicesFromOrders(savedOrders);
+            recordSaved(savedOrders);
+            entityManager.flush();
+
+            for (int j = 0; j < savedOrders.size(); j++) {
+                Order savedOrder = savedOrders.get(j);
+                int index = acceptedIndexes.get(start + j);
+                results[index] = new OrderBatchResultDTO(index, true, savedOrder.getId(),
+                        savedInvoices.get(j).getInvoiceNumber(), null, null);
+                if (savedOrder.getEmployeeId() != null) {
+                    employeeIds.add(savedOrder.getEmployeeId());
+                }
+            }
+            entityManager.clear();
+        }
+
+        if (!employeeIds.isEmpty()) {
+            Map<Long, Long> totalOrdersByEmployee = new HashMap<>();
+            for (Object[] row : orderRepository.countTotalOrdersByEmployees(employeeIds)) {
+                totalOrdersByEmployee.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            for (int i = 0; i < acceptedIndexes.size(); i++) {
+                Long employeeId = acceptedOrders.get(i).getEmployeeId();
+                if (employeeId != null) {
+                    results[acceptedIndexes.get(i)].setTotalOrdersByEmployee(totalOrdersByEmployee.get(employeeId));
+                }
+            }
+        }
+
+        return List.of(results);
+    }
+
+    // Brings every read model up to date with orders saved in the current transaction
+    private void recordSaved(List<Order> savedOrders) {
+        for (OrderRecorder recorder : orderRecorders) {
+            recorder.recordOrders(savedOrders);
+        }
+    }
+
+    // Checks one queued order against the batch's stock snapshot and takes its quantities out of it
+    private String reserveBatchStock(OrderRequestDTO dto, Map<Long, Product> products, Map<Long, Long> remainingStock) {
+        if (dto.getItems() == null || dto.getItems().isEmpty()) {
+            return "Order has no items";
+        }
+
+        Map<Long, Long> requested = new HashMap<>();
+        for (var itemDTO : dto.getItems()) {
+            if (itemDTO.getQuantity() <= 0) {
+                return "Invalid quantity " + itemDTO.getQuantity() + " for product ID: " + itemDTO.getProductId();
+            }
+            if (!products.containsKey(itemDTO.getProductId())) {
+                return "Product not found with ID: " + itemDTO.getProductId();
+            }
+            requested.merge(itemDTO.getProductId(), (long) itemDTO.getQuantity(), Long::sum);
+        }
+
+        for (Map.Entry<Long, Long> entry : requested.entrySet()) {
+            long available = remainingStock.get(entry.getKey());
+            if (available < entry.getValue()) {
+                return "Cannot order " + entry.getValue()
+                        + " of product " + products.get(entry.getKey()).getName()
+                        + " (only " + available + " left)";
+            }
+        }
+
+        requested.forEach((productId, quantity) -> remainingStock.merge(productId, -quantity, Long::sum));
+        return null;
+    }
+
+    private Order buildOrder(OrderRequestDTO dto) {
+        var order = new Order();
+        order.setCustomerName(dto.getCustomerName());
+        order.setCustomerPhone(dto.getCustomerPhone());
+        order.setLoyaltyPoints(dto.getLoyaltyPoints());
+        order.setDiscountCode(dto.getDiscountCode());
+        order.setAmount(dto.getAmount());
+        order.setTotalDiscount(dto.getTotalDiscount());
+        order.setTotal(dto.getTotal());
+        order.setEmployeeId(dto.getEmployeeId());
+        order.setCashierName(dto.getCashierName());
+        order.setCashAmount(dto.getCashAmount());
+        order.setCardAmount(dto.getCardAmount());
+        return order;
+    }
+
     public OrderStatsDTO getOrderStats(
             Long brandId,
             Long categoryId,
             LocalDate startDate,
             LocalDate endDate
     ) {
-        LocalDateTime startDateTime = null;
-        LocalDateTime endDateTime = null;
-
-        if (startDate != null && endDate != null && !startDate.isAfter(endDate)) {
-            startDateTime = startDate.atStartOfDay();
-            endDateTime = endDate.plusDays(1).atStartOfDay();
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            startDate = null;
+            endDate = null;
         }
 
-        return orderRepository.findOrderStats(
-                brandId, categoryId, startDateTime, endDateTime
-        );
+        return orderStatsRollupService.getStats(brandId, categoryId, startDate, endDate);
     }
 }
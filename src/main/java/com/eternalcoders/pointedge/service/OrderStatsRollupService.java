@@ -0,0 +1,282 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.dto.DailySalesDTO;
+import com.eternalcoders.pointedge.dto.OrderStatsDTO;
+import com.eternalcoders.pointedge.entity.DailyOrderStats;
+import com.eternalcoders.pointedge.entity.Order;
+import com.eternalcoders.pointedge.entity.OrderItem;
+import com.eternalcoders.pointedge.enums.SalesBucket;
+import com.eternalcoders.pointedge.repository.DailyOrderStatsRepository;
+import com.eternalcoders.pointedge.repository.OrderItemRepository;
+import com.eternalcoders.pointedge.repository.ProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+public class OrderStatsRollupService implements OrderRecorder {
+    // Longest range an hourly series covers, since hours are summed from the orders
+    private static final int MAX_HOURLY_DAYS = 31;
+
+    private final DailyOrderStatsRepository dailyOrderStatsRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+
+    public OrderStatsRollupService(DailyOrderStatsRepository dailyOrderStatsRepository,
+                                   OrderItemRepository orderItemRepository,
+                                   ProductRepository productRepository) {
+        this.dailyOrderStatsRepository = dailyOrderStatsRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productRepository = productRepository;
+    }
+
+    private record Cell(LocalDate statDate, long brandId, long categoryId) {
+    }
+
+    // Cells are updated in this order so concurrent checkouts cannot deadlock on them
+    private static final Comparator<Cell> LOCK_ORDER = Comparator.comparing(Cell::statDate)
+            .thenComparingLong(Cell::brandId)
+            .thenComparingLong(Cell::categoryId);
+
+    private static final class DayTotal {
+        long orderCount;
+        double revenue;
+        double itemSales;
+
+        void add(long orderCount, double revenue, double itemSales) {
+            this.orderCount += orderCount;
+            this.revenue += revenue;
+            this.itemSales += itemSales;
+        }
+    }
+
+    // Day totals of the current transaction, bound to it until it completes
+    private static final class PendingDayTotals {
+        final Map<LocalDate, DayTotal> days = new TreeMap<>();
+    }
+
+    /**
+     * Adds freshly saved orders to the daily rollup. Called inside the transaction that saves the
+     * orders, so the rollup commits or rolls back with them. Every checkout of a day adds to the
+     * same (day, ANY, ANY) total row, so those rows are written just before commit, after every
+     * other row the transaction locks, and held only for the commit itself.
+     */
+    @Override
+    @Transactional
+    public void recordOrders(List<Order> orders) {
+        Map<Cell, long[]> orderCounts = new TreeMap<>(LOCK_ORDER);
+        Map<Cell, Double> revenues = new HashMap<>();
+        Map<Cell, Double> itemSales = new HashMap<>();
+
+        // Orders posted through the API carry products with only an ID, so brands and categories
+        // are looked up for all of them at once
+        Set<Long> productIds = new HashSet<>();
+        for (Order order : orders) {
+            if (order.getOrderItems() != null) {
+                order.getOrderItems().forEach(item -> productIds.add(item.getProduct().getId()));
+            }
+        }
+        Map<Long, long[]> brandCategoryIds = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Object[] row : productRepository.findBrandCategoryIdsByIds(productIds)) {
+                brandCategoryIds.put((Long) row[0], new long[]{(Long) row[1], (Long) row[2]});
+            }
+        }
+
+        for (Order order : orders) {
+            if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
+                continue;
+            }
+            LocalDate statDate = order.getOrderDate() != null ? order.getOrderDate().toLocalDate() : LocalDate.now();
+            double total = order.getTotal() != null ? order.getTotal() : 0.0;
+
+            Set<Cell> cells = new HashSet<>();
+            Cell totalCell = new Cell(statDate, DailyOrderStats.ANY, DailyOrderStats.ANY);
+            cells.add(totalCell);
+            for (OrderItem item : order.getOrderItems()) {
+                double sales = item.getPricePerUnit() * item.getQuantity();
+                itemSales.merge(totalCell, sales, Double::sum);
+
+                long[] ids = brandCategoryIds.get(item.getProduct().getId());
+                if (ids == null) {
+                    continue;
+                }
+                long brandId = ids[0];
+                long categoryId = ids[1];
+                for (Cell cell : List.of(
+                        new Cell(statDate, brandId, categoryId),
+                        new Cell(statDate, brandId, DailyOrderStats.ANY),
+                        new Cell(statDate, DailyOrderStats.ANY, categoryId))) {
+                    cells.add(cell);
+                    itemSales.merge(cell, sales, Double::sum);
+                }
+            }
+
+            for (Cell cell : cells) {
+                orderCounts.computeIfAbsent(cell, c -> new long[1])[0]++;
+                revenues.merge(cell, total, Double::sum);
+            }
+        }
+
+        Map<LocalDate, DayTotal> dayTotals = new TreeMap<>();
+        orderCounts.forEach((cell, count) -> {
+            if (cell.brandId() == DailyOrderStats.ANY && cell.categoryId() == DailyOrderStats.ANY) {
+                dayTotals.computeIfAbsent(cell.statDate(), d -> new DayTotal())
+                        .add(count[0], revenues.get(cell), itemSales.getOrDefault(cell, 0.0));
+            } else {
+                dailyOrderStatsRepository.addToCell(
+                        cell.statDate(), cell.brandId(), cell.categoryId(), count[0], revenues.get(cell),
+                        itemSales.getOrDefault(cell, 0.0)
+                );
+            }
+        });
+        addDayTotalsBeforeCommit(dayTotals);
+    }
+
+    // Collects the day totals of all calls in the transaction and writes them in date order
+    private void addDayTotalsBeforeCommit(Map<LocalDate, DayTotal> dayTotals) {
+        if (dayTotals.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeDayTotals(dayTotals);
+            return;
+        }
+
+        PendingDayTotals pending = (PendingDayTotals) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingDayTotals created = new PendingDayTotals();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    writeDayTotals(created.days);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderStatsRollupService.this);
+                }
+            });
+            pending = created;
+        }
+        Map<LocalDate, DayTotal> days = pending.days;
+        dayTotals.forEach((day, total) -> days.computeIfAbsent(day, d -> new DayTotal())
+                .add(total.orderCount, total.revenue, total.itemSales));
+    }
+
+    private void writeDayTotals(Map<LocalDate, DayTotal> dayTotals) {
+        dayTotals.forEach((day, total) -> dailyOrderStatsRepository.addToCell(
+                day, DailyOrderStats.ANY, DailyOrderStats.ANY, total.orderCount, total.revenue, total.itemSales
+        ));
+    }
+
+    @Transactional(readOnly = true)
+    public OrderStatsDTO getStats(Long brandId, Long categoryId, LocalDate startDate, LocalDate endDate) {
+        return dailyOrderStatsRepository.sumStats(
+                brandId != null ? brandId : DailyOrderStats.ANY,
+                categoryId != null ? categoryId : DailyOrderStats.ANY,
+                startDate,
+                endDate
+        );
+    }
+
+    /**
+     * Item sales per bucket for an inclusive date range, oldest first; buckets without sales are
+     * left out. Days, weeks (starting Monday) and months are added up from the daily rollup. The
+     * rollup has no hours, so hourly buckets are summed from the orders and limited to the last
+     * MAX_HOURLY_DAYS days of the range.
+     */
+    @Transactional(readOnly = true)
+    public List<DailySalesDTO> getSalesSeries(SalesBucket bucket, LocalDate startDate, LocalDate endDate) {
+        List<DailySalesDTO> series = new ArrayList<>();
+        forEachSalesBucket(bucket, startDate, endDate, series::add);
+        return series;
+    }
+
+    /**
+     * Hands the buckets of getSalesSeries to the sink oldest first, as the rollup rows are read,
+     * so a long daily series is never held in memory. A bucket is complete once a row of the
+     * next one arrives.
+     */
+    @Transactional(readOnly = true)
+    public void forEachSalesBucket(SalesBucket bucket, LocalDate startDate, LocalDate endDate, Consumer<DailySalesDTO> sink) {
+        if (bucket == SalesBucket.HOUR) {
+            LocalDate end = endDate != null ? endDate : LocalDate.now();
+            LocalDate earliest = end.minusDays(MAX_HOURLY_DAYS - 1);
+            LocalDate start = startDate != null && startDate.isAfter(earliest) ? startDate : earliest;
+
+            // at most MAX_HOURLY_DAYS * 24 rows, so the grouped list is read whole
+            for (Object[] row : orderItemRepository.sumSalesByHour(start.atStartOfDay(), end.plusDays(1).atStartOfDay())) {
+                LocalDateTime hour = ((LocalDate) row[0]).atTime(((Number) row[1]).intValue(), 0);
+                sink.accept(new DailySalesDTO(hour, ((Number) row[2]).doubleValue()));
+            }
+            return;
+        }
+
+        LocalDate currentBucket = null;
+        double currentTotal = 0;
+        try (Stream<Object[]> rows = dailyOrderStatsRepository.streamDailySales(startDate, endDate)) {
+            for (Iterator<Object[]> it = rows.iterator(); it.hasNext(); ) {
+                Object[] row = it.next();
+                LocalDate day = (LocalDate) row[0];
+                LocalDate bucketStart = switch (bucket) {
+                    case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                    case MONTH -> day.withDayOfMonth(1);
+                    default -> day;
+                };
+                if (!bucketStart.equals(currentBucket)) {
+                    if (currentBucket != null) {
+                        sink.accept(new DailySalesDTO(currentBucket.atStartOfDay(), currentTotal));
+                    }
+                    currentBucket = bucketStart;
+                    currentTotal = 0;
+                }
+                currentTotal += ((Number) row[1]).doubleValue();
+            }
+        }
+        if (currentBucket != null) {
+            sink.accept(new DailySalesDTO(currentBucket.atStartOfDay(), currentTotal));
+        }
+    }
+
+    /**
+     * Recomputes the rollup for an inclusive date range from the raw orders.
+     * Used for the initial backfill and to repair days after manual data fixes.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate startDate, LocalDate endDate) {
+        var startDateTime = startDate.atStartOfDay();
+        var endDateTime = endDate.plusDays(1).atStartOfDay();
+
+        int deleted = dailyOrderStatsRepository.deleteRange(startDate, endDate);
+        int inserted = dailyOrderStatsRepository.backfillBrandCategoryCells(startDateTime, endDateTime)
+                + dailyOrderStatsRepository.backfillBrandCells(startDateTime, endDateTime)
+                + dailyOrderStatsRepository.backfillCategoryCells(startDateTime, endDateTime)
+                + dailyOrderStatsRepository.backfillTotalCells(startDateTime, endDateTime);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("startDate", startDate);
+        response.put("endDate", endDate);
+        response.put("rowsDeleted", deleted);
+        response.put("rowsInserted", inserted);
+        return response;
+    }
+}
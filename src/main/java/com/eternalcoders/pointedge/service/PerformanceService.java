@@ -18,7 +18,7 @@ import java.time.LocalTime;
 import java.util.*;
 
 @Service
-@Transactional
+@Transactional(readOnly = true)
 public class PerformanceService {
 
     private final OrderRepository orderRepository;
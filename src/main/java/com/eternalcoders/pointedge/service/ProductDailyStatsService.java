@@ -0,0 +1,135 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.dto.ProductOrderPageDTO;
+import com.eternalcoders.pointedge.dto.ProductOrderTotalDTO;
+import com.eternalcoders.pointedge.dto.ProductReturnRateDTO;
+import com.eternalcoders.pointedge.entity.Order;
+import com.eternalcoders.pointedge.entity.OrderItem;
+import com.eternalcoders.pointedge.entity.ReturnRecord;
+import com.eternalcoders.pointedge.repository.ProductDailyStatsRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class ProductDailyStatsService implements OrderRecorder {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ProductDailyStatsRepository productDailyStatsRepository;
+
+    public ProductDailyStatsService(ProductDailyStatsRepository productDailyStatsRepository) {
+        this.productDailyStatsRepository = productDailyStatsRepository;
+    }
+
+    private record Cell(LocalDate statDate, long productId) {
+    }
+
+    /**
+     * Adds the items of freshly saved orders to their product's day. Called inside the
+     * transaction that saves the orders, so the rollup commits or rolls back with them.
+     */
+    @Override
+    @Transactional
+    public void recordOrders(List<Order> orders) {
+        // Cells are updated in date and product order so concurrent checkouts cannot deadlock on them
+        Map<Cell, Long> quantities = new TreeMap<>(Comparator.comparing(Cell::statDate).thenComparingLong(Cell::productId));
+        for (Order order : orders) {
+            if (order.getOrderItems() == null) {
+                continue;
+            }
+            LocalDate statDate = order.getOrderDate() != null ? order.getOrderDate().toLocalDate() : LocalDate.now();
+            for (OrderItem item : order.getOrderItems()) {
+                quantities.merge(new Cell(statDate, item.getProduct().getId()), item.getQuantity(), Long::sum);
+            }
+        }
+
+        quantities.forEach((cell, quantity) ->
+                productDailyStatsRepository.addToCell(cell.statDate(), cell.productId(), quantity, 0));
+    }
+
+    @Transactional
+    public void recordReturn(ReturnRecord record) {
+        LocalDate statDate = record.getReturnedAt() != null ? record.getReturnedAt().toLocalDate() : LocalDate.now();
+        productDailyStatsRepository.addToCell(statDate, record.getProductId(), 0, record.getQuantityReturned());
+    }
+
+    /**
+     * Units returned over units sold per product for an inclusive date range, either end open
+     * when null, highest first. Only products with returns in the range are listed.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductReturnRateDTO> getReturnRates(LocalDate startDate, LocalDate endDate, Integer top) {
+        return productDailyStatsRepository.findReturnRates(
+                startDate, endDate, top != null ? Limit.of(top) : Limit.unlimited());
+    }
+
+    /**
+     * Units sold per product for an inclusive date range, either end open when null, a page at a
+     * time by product name. Pages are keyset-based: pass the previous page's last name and id back
+     * as the cursor. The count is only computed when asked for, and only from the catalog.
+     */
+    @Transactional(readOnly = true)
+    public ProductOrderPageDTO getProductOrderPage(
+            Long brandId,
+            Long categoryId,
+            LocalDate startDate,
+            LocalDate endDate,
+            String search,
+            String cursorName,
+            Long cursorId,
+            int size,
+            boolean includeCount) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String searchTerm = search == null || search.isBlank() ? null : search;
+        if (cursorName != null && cursorId == null) {
+            cursorId = Long.MIN_VALUE;
+        }
+
+        // Fetch one extra row to know whether another page follows
+        List<ProductOrderTotalDTO> products = new ArrayList<>(productDailyStatsRepository.findProductTotalsAfter(
+                brandId, categoryId, searchTerm, startDate, endDate, cursorName, cursorId, Limit.of(pageSize + 1)));
+        boolean hasMore = products.size() > pageSize;
+        if (hasMore) {
+            products.remove(pageSize);
+        }
+
+        ProductOrderTotalDTO last = hasMore ? products.get(products.size() - 1) : null;
+        return new ProductOrderPageDTO(
+                products,
+                last != null ? last.getProductName() : null,
+                last != null ? last.getProductId() : null,
+                hasMore,
+                includeCount ? productDailyStatsRepository.countCatalogProducts(brandId, categoryId, searchTerm) : null
+        );
+    }
+
+    /**
+     * Recomputes the rollup for an inclusive date range from order_item and return_record.
+     * Used for the initial backfill and to repair days after manual data fixes.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay();
+
+        int deleted = productDailyStatsRepository.deleteRange(startDate, endDate);
+        int inserted = productDailyStatsRepository.backfillSold(startDateTime, endDateTime);
+        productDailyStatsRepository.backfillReturned(startDateTime, endDateTime);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("startDate", startDate);
+        response.put("endDate", endDate);
+        response.put("rowsDeleted", deleted);
+        response.put("rowsInserted", inserted);
+        return response;
+    }
+}
@@ -0,0 +1,277 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.dto.ProductRevenueDTO;
+import com.eternalcoders.pointedge.dto.TopSellingProductDTO;
+import com.eternalcoders.pointedge.entity.Order;
+import com.eternalcoders.pointedge.entity.OrderItem;
+import com.eternalcoders.pointedge.entity.ProductSalesTotal;
+import com.eternalcoders.pointedge.repository.OrderDetailsRepository;
+import com.eternalcoders.pointedge.repository.ProductSalesTotalRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Units sold and revenue per product, kept in product_sales_totals and mirrored in memory as two
+ * skip lists ordered by quantity and by revenue. Orders add to the totals as they are saved and
+ * cash or card refunds take off them, so the top N products are read from the head of a list
+ * without touching order_items.
+ */
+@Service
+public class ProductSalesLeaderboardService implements OrderRecorder {
+    private static final String UNKNOWN_PRODUCT = "Unknown";
+
+    private final ProductSalesTotalRepository totalRepository;
+    private final OrderDetailsRepository orderDetailsRepository;
+
+    private final TransactionTemplate loadTransaction;
+
+    private volatile Board board;
+    // Bumped whenever totals change, so a load that raced with the change is not kept
+    private final AtomicLong generation = new AtomicLong();
+    // Transactions that changed totals and have not finished yet. Their rows may be committed
+    // before the board hears of them, so a load that starts while one is open is not kept either.
+    private final AtomicInteger unfinished = new AtomicInteger();
+
+    public ProductSalesLeaderboardService(ProductSalesTotalRepository totalRepository,
+                                          OrderDetailsRepository orderDetailsRepository,
+                                          PlatformTransactionManager transactionManager) {
+        this.totalRepository = totalRepository;
+        this.orderDetailsRepository = orderDetailsRepository;
+        // Read-write and separate from the caller's read-only one, so the board is read from the
+        // primary and not from a replica that may not have the latest totals yet
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private record Entry(long productId, long quantity, double revenue) {
+    }
+
+    // Highest first; ties by product id so entries of different products never compare equal
+    private static final Comparator<Entry> BY_QUANTITY = Comparator.comparingLong(Entry::quantity).reversed()
+            .thenComparingLong(Entry::productId);
+    private static final Comparator<Entry> BY_REVENUE = Comparator.comparingDouble(Entry::revenue).reversed()
+            .thenComparingLong(Entry::productId);
+
+    private static final class Board {
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final NavigableSet<Entry> byQuantity = new ConcurrentSkipListSet<>(BY_QUANTITY);
+        private final NavigableSet<Entry> byRevenue = new ConcurrentSkipListSet<>(BY_REVENUE);
+
+        // Writers are serialized; readers walk the skip lists without locking
+        synchronized void add(long productId, long quantity, double revenue) {
+            Entry previous = entries.get(productId);
+            if (previous != null) {
+                byQuantity.remove(previous);
+                byRevenue.remove(previous);
+                quantity += previous.quantity();
+                revenue += previous.revenue();
+            }
+            Entry entry = new Entry(productId, quantity, revenue);
+            entries.put(productId, entry);
+            byQuantity.add(entry);
+            byRevenue.add(entry);
+        }
+
+        static List<Entry> top(NavigableSet<Entry> ranking, int limit) {
+            List<Entry> top = new ArrayList<>(Math.min(limit, 64));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (top.size() < limit && iterator.hasNext()) {
+                top.add(iterator.next());
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Products by units sold, highest first; all products when limit is null.
+     */
+    public List<TopSellingProductDTO> getTopByQuantity(Integer limit) {
+        List<Entry> top = Board.top(board().byQuantity, limit != null ? limit : Integer.MAX_VALUE);
+        Map<Long, String> names = namesOf(top);
+        List<TopSellingProductDTO> result = new ArrayList<>(top.size());
+        for (Entry entry : top) {
+            result.add(new TopSellingProductDTO(entry.productId(),
+                    names.getOrDefault(entry.productId(), UNKNOWN_PRODUCT), entry.quantity()));
+        }
+        return result;
+    }
+
+    /**
+     * Products by revenue, highest first; all products when limit is null.
+     */
+    public List<ProductRevenueDTO> getTopByRevenue(Integer limit) {
+        List<Entry> top = Board.top(board().byRevenue, limit != null ? limit : Integer.MAX_VALUE);
+        Map<Long, String> names = namesOf(top);
+        List<ProductRevenueDTO> result = new ArrayList<>(top.size());
+        for (Entry entry : top) {
+            result.add(new ProductRevenueDTO(entry.productId(),
+                    names.getOrDefault(entry.productId(), UNKNOWN_PRODUCT), entry.revenue()));
+        }
+        return result;
+    }
+
+    private Map<Long, String> namesOf(List<Entry> entries) {
+        Map<Long, String> names = new HashMap<>();
+        if (entries.isEmpty()) {
+            return names;
+        }
+        for (Object[] row : orderDetailsRepository.findNamesByIds(entries.stream().map(Entry::productId).toList())) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+        return names;
+    }
+
+    private Board board() {
+        Board current = board;
+        if (current != null) {
+            return current;
+        }
+
+        long loadedGeneration = generation.get();
+        boolean quiet = unfinished.get() == 0;
+        Board loaded = load();
+        if (quiet && generation.get() == loadedGeneration) {
+            board = loaded;
+        }
+        return loaded;
+    }
+
+    private Board load() {
+        return loadTransaction.execute(status -> {
+            Board loaded = new Board();
+            for (ProductSalesTotal total : totalRepository.findAll()) {
+                loaded.add(total.getProductId(), total.getQuantitySold(), total.getRevenue());
+            }
+            return loaded;
+        });
+    }
+
+    // Reloaded hourly so the board cannot drift from the table for long
+    @Scheduled(cron = "0 45 * * * *")
+    public void reload() {
+        generation.incrementAndGet();
+        board = null;
+    }
+
+    /**
+     * Adds the items of freshly saved orders to their products' totals. Called inside the
+     * transaction that saves the orders; the board follows once it commits.
+     */
+    @Override
+    @Transactional
+    public void recordOrders(List<Order> orders) {
+        // Rows are updated in product order so concurrent checkouts cannot deadlock on them
+        Map<Long, Entry> additions = new TreeMap<>();
+        for (Order order : orders) {
+            if (order.getOrderItems() == null) {
+                continue;
+            }
+            for (OrderItem item : order.getOrderItems()) {
+                long productId = item.getProduct().getId();
+                Entry added = additions.get(productId);
+                long quantity = item.getQuantity() + (added != null ? added.quantity() : 0);
+                double revenue = item.getPricePerUnit() * item.getQuantity() + (added != null ? added.revenue() : 0);
+                additions.put(productId, new Entry(productId, quantity, revenue));
+            }
+        }
+        apply(additions.values());
+    }
+
+    /**
+     * Takes a cash or card refund off the product's totals.
+     */
+    @Transactional
+    public void recordRefund(Long productId, long quantity, double amount) {
+        apply(List.of(new Entry(productId, -quantity, -amount)));
+    }
+
+    private void apply(Iterable<Entry> deltas) {
+        List<Entry> applied = new ArrayList<>();
+        for (Entry delta : deltas) {
+            totalRepository.addToProduct(delta.productId(), delta.quantity(), delta.revenue());
+            applied.add(delta);
+        }
+        if (applied.isEmpty()) {
+            return;
+        }
+        unfinished.incrementAndGet();
+        generation.incrementAndGet();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    finish(status == STATUS_COMMITTED ? applied : List.of());
+                }
+            });
+        } else {
+            finish(applied);
+        }
+    }
+
+    private void finish(List<Entry> committed) {
+        try {
+            addToBoard(committed);
+        } finally {
+            // A load running across the commit is not kept
+            unfinished.decrementAndGet();
+            generation.incrementAndGet();
+        }
+    }
+
+    private void addToBoard(List<Entry> deltas) {
+        Board current = board;
+        if (current != null) {
+            for (Entry delta : deltas) {
+                current.add(delta.productId(), delta.quantity(), delta.revenue());
+            }
+        }
+    }
+
+    /**
+     * Recomputes every product's totals from order_item and return_record. Used for the initial
+     * backfill and after manual data fixes.
+     */
+    @Transactional
+    public Map<String, Object> rebuild() {
+        int deleted = totalRepository.deleteAllTotals();
+        int inserted = totalRepository.backfillSales();
+        totalRepository.backfillRefunds();
+        reloadAfterCommit();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("rowsDeleted", deleted);
+        response.put("rowsInserted", inserted);
+        return response;
+    }
+
+    private void reloadAfterCommit() {
+        reload();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        }
+    }
+}
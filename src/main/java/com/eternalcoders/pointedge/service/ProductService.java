@@ -15,11 +15,13 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final BrandRepository brandRepository;
     private final CategoryRepository categoryRepository;
+    private final CatalogStatsService catalogStatsService;
 
-    public ProductService(ProductRepository productRepository, BrandRepository brandRepository, CategoryRepository categoryRepository) {
+    public ProductService(ProductRepository productRepository, BrandRepository brandRepository, CategoryRepository categoryRepository, CatalogStatsService catalogStatsService) {
         this.productRepository = productRepository;
         this.brandRepository = brandRepository;
         this.categoryRepository = categoryRepository;
+        this.catalogStatsService = catalogStatsService;
     }
 
     public Page<Product> getFilteredProducts(Long brandId, Long categoryId, Boolean hidden, String search, Pageable pageable) {
@@ -38,7 +40,9 @@ public class ProductService {
 
         persistNewBrandAndCategory(product);
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        catalogStatsService.productSaved(savedProduct);
+        return savedProduct;
     }
 
     public Product updateProduct(Product product) {
@@ -46,7 +50,9 @@ public class ProductService {
 
         persistNewBrandAndCategory(product);
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        catalogStatsService.productSaved(savedProduct);
+        return savedProduct;
     }
 
     private void persistNewBrandAndCategory(Product product) {
@@ -0,0 +1,222 @@
+package com.eternalcoders.pointedge.service;
+
+import com.eternalcoders.pointedge.dto.ReportSnapshotDTO;
+import com.eternalcoders.pointedge.entity.ReportSnapshot;
+import com.eternalcoders.pointedge.exception.RefreshRateLimitedException;
+import com.eternalcoders.pointedge.exception.ResourceNotFoundException;
+import com.eternalcoders.pointedge.repository.ReportSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Precomputed copies of the month-end reports, so they are not computed on demand while the
+ * tills are busiest. Configured reports are recomputed off-peak on a small fixed pool and stored
+ * as new, never-changed versions of gzipped JSON; readers get the latest version with the time
+ * it was computed. A manual refresh of a report is accepted at most once per min-refresh-minutes.
+ */
+@Slf4j
+@Service
+public class ReportSnapshotService {
+    // Versions kept per report; older ones are deleted when a new one is stored
+    private static final int KEPT_VERSIONS = 30;
+
+    /*
+     * Monthly reports cover the last complete calendar month and get its first and last day;
+     * the others cover all time and get nulls.
+     */
+    private record Report(boolean monthly, BiFunction<LocalDate, LocalDate, Object> compute) {
+    }
+
+    private final ReportSnapshotRepository snapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final Map<String, Report> reports = new LinkedHashMap<>();
+    private final List<String> precomputed;
+    private final Duration minRefreshInterval;
+    private final ThreadPoolExecutor executor;
+
+    // Reports queued or being computed, so each is in the pool at most once
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Map<String, Instant> lastManualRefresh = new ConcurrentHashMap<>();
+
+    public ReportSnapshotService(ReportSnapshotRepository snapshotRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 AnalyticsService analyticsService,
+                                 OrderDetailsService orderDetailsService,
+                                 PerformanceService performanceService,
+                                 @Value("${pointedge.reports.precompute:employee-productivity,discount-totals,product-revenue}") List<String> precomputed,
+                                 @Value("${pointedge.reports.threads:1}") int threads,
+                                 @Value("${pointedge.reports.min-refresh-minutes:10}") long minRefreshMinutes) {
+        this.snapshotRepository = snapshotRepository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.minRefreshInterval = Duration.ofMinutes(minRefreshMinutes);
+
+        reports.put("employee-productivity", new Report(true, (start, end) ->
+                performanceService.getSalesOrdersSummaryByDateRange(start, end, "sales", "desc")));
+        reports.put("discount-totals", new Report(true, (start, end) ->
+                orderDetailsService.getAllDiscountTotalsForCustomRange(start.atStartOfDay(), end.atTime(LocalTime.MAX))));
+        reports.put("product-revenue", new Report(false, (start, end) ->
+                analyticsService.getRevenueByProduct(null)));
+
+        for (String name : precomputed) {
+            if (!reports.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown report in pointedge.reports.precompute: " + name);
+            }
+        }
+        this.precomputed = List.copyOf(precomputed);
+
+        // Room in the queue for every report, so a submission is never rejected
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(reports.size()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(cron = "${pointedge.reports.cron:0 0 3 * * *}")
+    public void precomputeAll() {
+        precomputed.forEach(this::submit);
+    }
+
+    /**
+     * Queues a recompute of the report unless one is already queued or running. Manual refreshes
+     * of a report closer together than min-refresh-minutes are refused.
+     */
+    public Map<String, Object> refresh(String reportName) {
+        requireReport(reportName);
+        Instant now = Instant.now();
+        Instant accepted = lastManualRefresh.compute(reportName, (name, last) ->
+                last != null && last.plus(minRefreshInterval).isAfter(now) ? last : now);
+        if (!accepted.equals(now)) {
+            long waitSeconds = Duration.between(now, accepted.plus(minRefreshInterval)).toSeconds() + 1;
+            throw new RefreshRateLimitedException("Report " + reportName + " was refreshed recently; try again in "
+                    + waitSeconds + " seconds");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("report", reportName);
+        response.put("status", submit(reportName) ? "queued" : "already queued");
+        return response;
+    }
+
+    private boolean submit(String reportName) {
+        if (!pending.add(reportName)) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                compute(reportName);
+            } catch (RuntimeException e) {
+                log.error("Report {} could not be precomputed", reportName, e);
+            } finally {
+                pending.remove(reportName);
+            }
+        });
+        return true;
+    }
+
+    private void compute(String reportName) {
+        Report report = reports.get(reportName);
+        LocalDateTime asOf = LocalDateTime.now();
+        LocalDate periodStart = null;
+        LocalDate periodEnd = null;
+        if (report.monthly()) {
+            periodStart = asOf.toLocalDate().withDayOfMonth(1).minusMonths(1);
+            periodEnd = periodStart.plusMonths(1).minusDays(1);
+        }
+
+        byte[] data = gzip(report.compute().apply(periodStart, periodEnd));
+        LocalDate start = periodStart;
+        LocalDate end = periodEnd;
+        int version = transaction.execute(status -> {
+            Integer latest = snapshotRepository.findLatestVersion(reportName);
+            int next = latest == null ? 1 : latest + 1;
+            snapshotRepository.save(new ReportSnapshot(reportName, next, asOf, start, end, data));
+            if (next > KEPT_VERSIONS) {
+                snapshotRepository.deleteUpToVersion(reportName, next - KEPT_VERSIONS);
+            }
+            return next;
+        });
+        log.info("Stored version {} of report {} ({} bytes)", version, reportName, data.length);
+    }
+
+    // the latest version of every report that has one, without the data
+    @Transactional(readOnly = true)
+    public List<ReportSnapshotDTO> getLatestSnapshots() {
+        return snapshotRepository.findLatestSummaries();
+    }
+
+    /**
+     * The given version of the report, or its latest one when no version is given.
+     */
+    @Transactional(readOnly = true)
+    public ReportSnapshotDTO getSnapshot(String reportName, Integer version) {
+        requireReport(reportName);
+        ReportSnapshot snapshot = (version == null
+                ? snapshotRepository.findTopByReportNameOrderByVersionDesc(reportName)
+                : snapshotRepository.findByReportNameAndVersion(reportName, version))
+                .orElseThrow(() -> new ResourceNotFoundException(version == null
+                        ? "Report " + reportName + " has not been computed yet"
+                        : "Report " + reportName + " has no version " + version));
+        return new ReportSnapshotDTO(snapshot.getReportName(), snapshot.getVersion(), snapshot.getAsOf(),
+                snapshot.getPeriodStart(), snapshot.getPeriodEnd(), gunzip(snapshot.getData()));
+    }
+
+    private void requireReport(String reportName) {
+        if (!reports.containsKey(reportName)) {
+            throw new ResourceNotFoundException("Unknown report: " + reportName);
+        }
+    }
+
+    private byte[] gzip(Object result) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private String gunzip(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
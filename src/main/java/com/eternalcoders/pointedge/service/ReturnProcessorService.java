@@ -32,6 +32,8 @@ public class ReturnProcessorService {
     private final CardRefundRecordRepository cardRefundRecordRepository;
     private final CustomerRepository customerRepository;
     private final ReturnItemRepository returnItemRepository;
+    private final ProductSalesLeaderboardService productSalesLeaderboardService;
+    private final ProductDailyStatsService productDailyStatsService;
 
     @Autowired
     private ApplicationContext context; // Used for proxy-based method call
@@ -192,6 +194,7 @@ public class ReturnProcessorService {
             }
 
             returnRecordRepository.save(record);
+            productDailyStatsService.recordReturn(record);
 
             if ("Cash".equalsIgnoreCase(request.getRefundMethod()) ||
                     "Card".equalsIgnoreCase(request.getRefundMethod())) {
@@ -206,6 +209,8 @@ public class ReturnProcessorService {
 
                 invoiceItem.setQuantity(remainingQty);
                 invoiceItemRepository.save(invoiceItem);
+
+                productSalesLeaderboardService.recordRefund(product.getId(), item.getQuantity(), itemRefund);
             }
         }
 
@@ -255,6 +260,7 @@ public class ReturnProcessorService {
             record.setReturnedAt(LocalDateTime.now());
             record.setReplacementProduct(product);
             returnRecordRepository.save(record);
+            productDailyStatsService.recordReturn(record);
 
             ReturnItem returnItem = new ReturnItem();
             returnItem.setProduct(product);
@@ -6,13 +6,16 @@ import com.eternalcoders.pointedge.entity.Attendance;
 import com.eternalcoders.pointedge.entity.Employee;
 import com.eternalcoders.pointedge.repository.AttendanceRepository;
 import com.eternalcoders.pointedge.repository.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ShiftReportService {
     
@@ -24,6 +27,9 @@ public class ShiftReportService {
     
     @Autowired
     private PerformanceService performanceService;
+
+    @Autowired
+    private AttendanceService attendanceService;
     
     public List<ShiftReportDTO> getEmployeeShiftReport(Long employeeId) {
         try {
@@ -89,6 +95,41 @@ public class ShiftReportService {
         }
     }
     
+    /**
+     * Same rows as getAllEmployeesShiftReport, handed to the sink one at a time while each
+     * employee's attendances are read. Each employee's totals are looked up in their own
+     * transaction before the attendance cursor opens: a streaming MySQL connection runs one
+     * statement at a time, and a failed lookup must not mark a shared transaction rollback-only
+     * once part of the response is out.
+     */
+    public void forEachShiftReport(Consumer<ShiftReportDTO> sink) {
+        for (Employee employee : employeeRepository.findAll()) {
+            PerformanceDTO performanceData;
+            try {
+                performanceData = performanceService.getEmployeeAllTimeTotals(employee.getId());
+            } catch (Exception e) {
+                log.warn("Skipping employee {} in the shift report: {}", employee.getId(), e.getMessage());
+                continue;
+            }
+
+            attendanceService.forEachAttendanceOf(employee, attendance ->
+                    sink.accept(new ShiftReportDTO(
+                        employee.getId(),
+                        employee.getName(),
+                        employee.getRole(),
+                        attendance.getDate(),
+                        attendance.getClockIn(),
+                        attendance.getClockOut(),
+                        attendance.getOtHours(),
+                        attendance.getTotalHours(),
+                        determineShiftType(attendance.getClockIn()),
+                        performanceData != null ? performanceData.getTotalOrders() : 0,
+                        performanceData != null ? performanceData.getTotalSales() : 0.0,
+                        performanceData != null ? performanceData.getWorkingHours() : "0:00:00"
+                    )));
+        }
+    }
+    
     public List<ShiftReportDTO> getEmployeeShiftReportByDateRange(Long employeeId, 
                                                                  java.time.LocalDate startDate, 
                                                                  java.time.LocalDate endDate) {
@@ -0,0 +1,126 @@
+package com.eternalcoders.pointedge.repository;
+
+import com.eternalcoders.pointedge.entity.Brand;
+import com.eternalcoders.pointedge.entity.Category;
+import com.eternalcoders.pointedge.entity.Invoice;
+import com.eternalcoders.pointedge.entity.InvoiceItem;
+import com.eternalcoders.pointedge.entity.Order;
+import com.eternalcoders.pointedge.entity.OrderItem;
+import com.eternalcoders.pointedge.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saves a 50-line order with its invoice and checks that Hibernate batches the inserts into a
+ * fixed number of JDBC statements, however many lines the order has.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderSaveBenchmarkTest {
+    private static final int LINES = 50;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 100;
+    private static final int STATEMENTS_PER_SAVE = 4;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Brand brand = new Brand();
+        brand.setName("Benchmark Brand");
+        testEntityManager.persist(brand);
+
+        Category category = new Category();
+        category.setName("Benchmark Category");
+        testEntityManager.persist(category);
+
+        for (int i = 0; i < LINES; i++) {
+            Product product = new Product();
+            product.setName("Benchmark Product " + i);
+            product.setBarcode("BENCH-" + i);
+            product.setPrice(100 + i);
+            product.setStockQuantity(1_000_000);
+            product.setBrand(brand);
+            product.setCategory(category);
+            products.add(testEntityManager.persist(product));
+        }
+        testEntityManager.flush();
+    }
+
+    @Test
+    void fiftyLineOrderSave() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            saveOrderWithInvoice();
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            saveOrderWithInvoice();
+        }
+
+        // One batched insert each for the order, its lines, the invoice and the invoice lines
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo((long) MEASURED_ROUNDS * STATEMENTS_PER_SAVE);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo((long) MEASURED_ROUNDS * (2 + 2L * LINES));
+    }
+
+    private void saveOrderWithInvoice() {
+        Order order = new Order();
+        order.setCustomerName("Benchmark");
+        order.setTotal(1000.0);
+        List<OrderItem> items = new ArrayList<>();
+        for (Product product : products) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setPricePerUnit(product.getPrice());
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        Order savedOrder = orderRepository.save(order);
+
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-" + UUID.randomUUID().toString().substring(0, 8));
+        invoice.setDate(LocalDateTime.now());
+        invoice.setTotalAmount(savedOrder.getTotal());
+        List<InvoiceItem> invoiceItems = new ArrayList<>();
+        for (OrderItem orderItem : savedOrder.getOrderItems()) {
+            InvoiceItem invoiceItem = new InvoiceItem();
+            invoiceItem.setInvoice(invoice);
+            invoiceItem.setOrderItem(orderItem);
+            invoiceItem.setQuantity((int) orderItem.getQuantity());
+            invoiceItems.add(invoiceItem);
+        }
+        invoice.setItems(invoiceItems);
+        invoiceRepository.save(invoice);
+
+        testEntityManager.flush();
+        testEntityManager.clear();
+    }
+}
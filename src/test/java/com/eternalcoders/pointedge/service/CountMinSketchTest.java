@@ -0,0 +1,93 @@
+package com.eternalcoders.pointedge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTest {
+    private static final int WIDTH = 1 << 16;
+
+    @Test
+    void emptySketchEstimatesZero() {
+        CountMinSketch sketch = new CountMinSketch();
+        assertThat(sketch.estimate(1)).isZero();
+        assertThat(sketch.estimate(-1)).isZero();
+    }
+
+    @Test
+    void incrementReturnsTheNewEstimate() {
+        CountMinSketch sketch = new CountMinSketch();
+        for (int i = 1; i <= 5; i++) {
+            assertThat(sketch.increment(42)).isEqualTo(i);
+        }
+        assertThat(sketch.estimate(42)).isEqualTo(5);
+    }
+
+    @Test
+    void estimatesNeverUndercountAndStayWithinTheBound() {
+        // skewed counts, like product pairs: a few very frequent keys and a long tail
+        CountMinSketch sketch = new CountMinSketch();
+        Map<Long, Integer> exact = new HashMap<>();
+        Random random = new Random(47);
+        long total = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            long key = (long) Math.floor(Math.pow(random.nextDouble(), 3) * 500_000);
+            sketch.increment(key);
+            exact.merge(key, 1, Integer::sum);
+            total++;
+        }
+
+        // overcount of at most e/width of everything added, for all but ~e^-4 of the keys
+        double bound = Math.E / WIDTH * total;
+        int overBound = 0;
+        for (Map.Entry<Long, Integer> entry : exact.entrySet()) {
+            int estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() > bound) {
+                overBound++;
+            }
+        }
+        assertThat((double) overBound / exact.size()).isLessThan(Math.exp(-4));
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        CountMinSketch sketch = new CountMinSketch();
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            sketch.increment(random.nextInt(10_000));
+        }
+        byte[] bytes = sketch.toBytes();
+        CountMinSketch restored = CountMinSketch.fromBytes(bytes);
+
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(restored.estimate(key)).isEqualTo(sketch.estimate(key));
+        }
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void emptySketchDeflatesToUnderEightKilobytes() {
+        assertThat(new CountMinSketch().toBytes().length).isLessThan(8 * 1024);
+    }
+
+    @Test
+    void rejectsBytesThatAreNotDeflated() {
+        assertThatThrownBy(() -> CountMinSketch.fromBytes(new byte[]{1, 2, 3, 4, 5}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsATruncatedSketch() {
+        byte[] bytes = new CountMinSketch().toBytes();
+        assertThatThrownBy(() -> CountMinSketch.fromBytes(Arrays.copyOf(bytes, bytes.length / 2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("counters");
+    }
+}
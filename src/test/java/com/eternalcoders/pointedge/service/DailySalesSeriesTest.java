@@ -0,0 +1,147 @@
+package com.eternalcoders.pointedge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DailySalesSeriesTest {
+
+    @Test
+    void emptySeriesRoundTrips() {
+        byte[] bytes = new DailySalesSeries(2024).toBytes();
+
+        assertThat(bytes).containsExactly(0);
+        assertThat(DailySalesSeries.fromBytes(2024, bytes).size()).isZero();
+    }
+
+    @Test
+    void daysAreKeptInOrderAndAddedUp() {
+        DailySalesSeries series = new DailySalesSeries(2023);
+        series.add(LocalDate.of(2023, 3, 10), 2, 10.50);
+        series.add(LocalDate.of(2023, 1, 5), 1, 4.25);
+        series.add(LocalDate.of(2023, 3, 10), 3, 15.75);
+
+        DailySalesSeries restored = DailySalesSeries.fromBytes(2023, series.toBytes());
+
+        assertThat(restored.size()).isEqualTo(2);
+        assertThat(restored.dateAt(0)).isEqualTo(LocalDate.of(2023, 1, 5));
+        assertThat(restored.quantityAt(0)).isEqualTo(1);
+        assertThat(restored.revenueAt(0)).isEqualTo(4.25);
+        assertThat(restored.dateAt(1)).isEqualTo(LocalDate.of(2023, 3, 10));
+        assertThat(restored.quantityAt(1)).isEqualTo(5);
+        assertThat(restored.revenueAt(1)).isEqualTo(26.25);
+    }
+
+    @Test
+    void negativeDeltasAndValuesRoundTrip() {
+        DailySalesSeries series = new DailySalesSeries(2023);
+        series.add(LocalDate.of(2023, 1, 1), 1_000_000, 99_999.99);
+        series.add(LocalDate.of(2023, 1, 2), 1, 0.01);
+        series.add(LocalDate.of(2023, 1, 3), -4, -12.34);
+        series.add(LocalDate.of(2023, 1, 4), Long.MAX_VALUE / 4, 0);
+        series.add(LocalDate.of(2023, 1, 5), Long.MIN_VALUE / 4, -0.5);
+
+        assertSameSeries(DailySalesSeries.fromBytes(2023, series.toBytes()), series);
+    }
+
+    @Test
+    void leapDayAndLastDayOfALeapYearRoundTrip() {
+        DailySalesSeries series = new DailySalesSeries(2024);
+        series.add(LocalDate.of(2024, 2, 29), 7, 70);
+        series.add(LocalDate.of(2024, 12, 31), 1, 1);
+
+        DailySalesSeries restored = DailySalesSeries.fromBytes(2024, series.toBytes());
+
+        assertThat(restored.dateAt(0)).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(restored.dateAt(1)).isEqualTo(LocalDate.of(2024, 12, 31));
+    }
+
+    @Test
+    void fullLeapYearRoundTripsInAFewBytesPerDay() {
+        DailySalesSeries series = new DailySalesSeries(2024);
+        Random random = new Random(44);
+        for (LocalDate day = LocalDate.of(2024, 1, 1); day.getYear() == 2024; day = day.plusDays(1)) {
+            series.add(day, 20 + random.nextInt(10), 500 + random.nextInt(10_000) / 100.0);
+        }
+        byte[] bytes = series.toBytes();
+        DailySalesSeries restored = DailySalesSeries.fromBytes(2024, bytes);
+
+        assertThat(restored.size()).isEqualTo(366);
+        assertSameSeries(restored, series);
+        assertThat(bytes.length).isLessThan(366 * 6);
+        // a decoded series can still be added to
+        restored.add(LocalDate.of(2024, 6, 1), 1, 1);
+        assertThat(restored.size()).isEqualTo(366);
+    }
+
+    @Test
+    void randomSparseSeriesRoundTrip() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int year = 2000 + random.nextInt(30);
+            DailySalesSeries series = new DailySalesSeries(year);
+            int days = random.nextInt(60);
+            for (int i = 0; i < days; i++) {
+                LocalDate day = LocalDate.ofYearDay(year, 1 + random.nextInt(LocalDate.of(year, 1, 1).lengthOfYear()));
+                series.add(day, random.nextInt(200) - 20, (random.nextInt(2_000_000) - 100_000) / 100.0);
+            }
+            byte[] bytes = series.toBytes();
+            DailySalesSeries restored = DailySalesSeries.fromBytes(year, bytes);
+
+            assertSameSeries(restored, series);
+            assertThat(restored.toBytes()).isEqualTo(bytes);
+        }
+    }
+
+    @Test
+    void rejectsADateOutsideTheYear() {
+        assertThatThrownBy(() -> new DailySalesSeries(2023).add(LocalDate.of(2024, 1, 1), 1, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsTruncatedAndTrailingBytes() {
+        DailySalesSeries series = new DailySalesSeries(2023);
+        series.add(LocalDate.of(2023, 5, 1), 3, 30);
+        byte[] bytes = series.toBytes();
+
+        assertThatThrownBy(() -> DailySalesSeries.fromBytes(2023, Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DailySalesSeries.fromBytes(2023, Arrays.copyOf(bytes, bytes.length + 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("trailing");
+    }
+
+    @Test
+    void rejectsMoreDaysThanAYearHas() {
+        // varint 367
+        assertThatThrownBy(() -> DailySalesSeries.fromBytes(2024, new byte[]{(byte) 0xEF, 0x02}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRepeatedOrOutOfYearDays() {
+        // two days, the second with a zero delta
+        assertThatThrownBy(() -> DailySalesSeries.fromBytes(2023, new byte[]{2, 1, 0, 0, 0, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+        // one day at day-of-year index 365, which only leap years have
+        byte[] lastLeapDay = {1, (byte) 0xEE, 0x02, 0, 0};
+        assertThat(DailySalesSeries.fromBytes(2024, lastLeapDay).dateAt(0)).isEqualTo(LocalDate.of(2024, 12, 31));
+        assertThatThrownBy(() -> DailySalesSeries.fromBytes(2023, lastLeapDay))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertSameSeries(DailySalesSeries actual, DailySalesSeries expected) {
+        assertThat(actual.size()).isEqualTo(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.dateAt(i)).isEqualTo(expected.dateAt(i));
+            assertThat(actual.quantityAt(i)).isEqualTo(expected.quantityAt(i));
+            assertThat(actual.revenueAt(i)).isEqualTo(expected.revenueAt(i));
+        }
+    }
+}
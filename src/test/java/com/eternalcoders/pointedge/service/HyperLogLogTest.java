@@ -0,0 +1,163 @@
+package com.eternalcoders.pointedge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+    private static final int REGISTER_COUNT = 1 << 14;
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 100; id++) {
+            sketch.add(id);
+            assertThat(sketch.estimate()).isCloseTo(id, within(Math.max(1, id / 50)));
+        }
+    }
+
+    @Test
+    void estimatesStayWithinFourStandardErrorsAcrossRanges() {
+        // standard error 1.04 / sqrt(2^14) is about 0.8%
+        for (long cardinality : new long[]{1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long id = 0; id < cardinality; id++) {
+                sketch.add(id);
+            }
+            assertThat((double) sketch.estimate()).isCloseTo(cardinality, within(cardinality * 0.033));
+        }
+    }
+
+    @Test
+    void stringIdsAreCountedLikeNumericOnes() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            sketch.add("ORD-" + i);
+        }
+        assertThat((double) sketch.estimate()).isCloseTo(50_000, within(50_000 * 0.033));
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheEstimate() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 0; id < 5_000; id++) {
+            sketch.add(id);
+        }
+        long estimate = sketch.estimate();
+        for (long id = 0; id < 5_000; id++) {
+            sketch.add(id);
+        }
+        assertThat(sketch.estimate()).isEqualTo(estimate);
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (long id = 0; id < 30_000; id++) {
+            left.add(id);
+            union.add(id);
+        }
+        for (long id = 20_000; id < 60_000; id++) {
+            right.add(id);
+            union.add(id);
+        }
+        left.merge(right);
+        assertThat(left.estimate()).isEqualTo(union.estimate());
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 0; id < 20_000; id++) {
+            sketch.add(id);
+        }
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+    }
+
+    @Test
+    void persistedFormatIsADeflatedRegisterArray() throws Exception {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add(42L);
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(sketch.toBytes());
+        byte[] registers = new byte[REGISTER_COUNT + 1];
+        int read = inflater.inflate(registers);
+        assertThat(inflater.finished()).isTrue();
+        inflater.end();
+
+        assertThat(read).isEqualTo(REGISTER_COUNT);
+        int set = 0;
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            if (registers[i] != 0) {
+                set++;
+                assertThat((int) registers[i]).isBetween(1, 64 - 14 + 1);
+            }
+        }
+        assertThat(set).isEqualTo(1);
+    }
+
+    @Test
+    void emptyDaySketchStaysSmall() {
+        assertThat(new HyperLogLog().toBytes().length).isLessThan(100);
+    }
+
+    @Test
+    void registersWrittenByHandAreRead() {
+        byte[] registers = new byte[REGISTER_COUNT];
+        registers[7] = 3;
+        HyperLogLog sketch = HyperLogLog.fromBytes(deflate(registers));
+        assertThat(sketch.estimate()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsBytesThatAreNotDeflated() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{1, 2, 3, 4, 5}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsARegisterArrayOfTheWrongSize() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(deflate(new byte[REGISTER_COUNT / 2])))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("registers");
+    }
+
+    @Test
+    void rejectsATruncatedSketch() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 0; id < 20_000; id++) {
+            sketch.add(id);
+        }
+        byte[] bytes = sketch.toBytes();
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(Arrays.copyOf(bytes, bytes.length / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[data.length + 64];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return Arrays.copyOf(buffer, length);
+    }
+}